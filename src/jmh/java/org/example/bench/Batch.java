@@ -0,0 +1,21 @@
+package org.example.bench;
+
+// BATCH fresh copies of one input for the destructive benchmarks (sort, select): one
+// invocation works through all of them under @OperationsPerInvocation(BATCH), so the
+// per-invocation refill is spread over BATCH calls (n = 1000: a sort invocation takes ~1.3 ms)
+final class Batch {
+
+    static final int BATCH = 16;
+
+    private final int[] input;
+    final int[][] arrays;
+
+    Batch(int[] input) {
+        this.input = input;
+        arrays = new int[BATCH][input.length];
+    }
+
+    void refill() {
+        for (int[] a : arrays) System.arraycopy(input, 0, a, 0, input.length);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.bench;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of target/benchmarks.jar: the usual JMH command line
+ * (e.g. {@code SortBench -p n=100000 -p dist=fewunique}). Profilers are opt-in with
+ * JMH's {@code -prof}, e.g. {@code -prof gc} for the allocation rate per call.
+ */
+public final class BenchMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(cli)
+                .build()).run();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.bench;
+
+import org.example.ClosestPair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ClosestPairBench {
+
+    @Param({"1000", "100000", "1000000"})
+    public int n;
+
+    @Param({"random", "sorted", "fewunique", "clustered", "grid"})
+    public String dist;
+
+    private ClosestPair.Point[] pts;
+    private int[] xs, ys;
+
+    // closest() works on its own copy of the input, so one input per trial is enough
+    @Setup(Level.Trial)
+    public void init() {
+        pts = Inputs.points(dist, n, 42);
+        xs = new int[n];
+        ys = new int[n];
+        for (int i = 0; i < n; i++) { xs[i] = pts[i].x; ys[i] = pts[i].y; }
+    }
+
+    @Benchmark
+    public double closest() {
+        return ClosestPair.closest(pts, null);
+    }
+
+    @Benchmark
+    public ClosestPair.Result closestSoa() {
+        return ClosestPair.closest(xs, ys, null);
+    }
+
+    @Benchmark
+    public ClosestPair.Result closestParallel() {
+        return ClosestPair.parallelClosest(xs, ys);
+    }
+}
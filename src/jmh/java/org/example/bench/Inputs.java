@@ -0,0 +1,22 @@
+package org.example.bench;
+
+import org.example.ClosestPair;
+import org.example.Generators;
+
+// input distributions shared by the benchmarks (see Generators for the list)
+final class Inputs {
+
+    static int[] ints(String dist, int n, long seed) {
+        return Generators.ints(dist, n, seed);
+    }
+
+    // array distributions give the x coordinates (y stays uniform), point distributions the whole set
+    static ClosestPair.Point[] points(String dist, int n, long seed) {
+        if (Generators.pointDists().contains(dist)) return Generators.points(dist, n, seed);
+        int[] xs = ints(dist, n, seed);
+        int[] ys = ints("random", n, seed + 1);
+        ClosestPair.Point[] p = new ClosestPair.Point[n];
+        for (int i = 0; i < n; i++) p[i] = new ClosestPair.Point(xs[i], ys[i]);
+        return p;
+    }
+}
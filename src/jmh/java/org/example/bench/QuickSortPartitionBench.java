@@ -0,0 +1,45 @@
+package org.example.bench;
+
+import org.example.QuickSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// LOMUTO is the old behaviour; fewunique (16 distinct keys) is the duplicate-heavy case
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// VECTOR needs the module; without it it runs as LOMUTO
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class QuickSortPartitionBench {
+
+    @Param({"100000", "1000000"})
+    public int n;
+
+    @Param({"random", "fewunique"})
+    public String dist;
+
+    @Param({"LOMUTO", "THREE_WAY", "DUAL_PIVOT", "VECTOR", "BLOCK"})
+    public QuickSort.Partition partition;
+
+    private Batch batch;
+
+    @Setup(Level.Trial)
+    public void init() {
+        batch = new Batch(Inputs.ints(dist, n, 42));
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        batch.refill();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Batch.BATCH)
+    public int[][] sort() {
+        for (int[] a : batch.arrays) QuickSort.sort(a, partition, null);
+        return batch.arrays;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.bench;
+
+import org.example.Engines;
+import org.example.IntSelector;
+import org.example.Select;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// the *-vector engines need the module; without it they run their scalar fallback
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class SelectBench {
+
+    @Param({"1000", "100000", "1000000"})
+    public int n;
+
+    @Param({"random", "sorted", "fewunique"})
+    public String dist;
+
+    // any name registered in Engines
+    @Param({"mom", "intro", "intro-vector", "intro-block"})
+    public String engine;
+
+    private IntSelector selector;
+    private Batch batch;
+
+    @Setup(Level.Trial)
+    public void init() {
+        selector = Engines.selector(engine);
+        batch = new Batch(Inputs.ints(dist, n, 42));
+    }
+
+    // selection reorders the array: fresh copies for every invocation (not measured)
+    @Setup(Level.Invocation)
+    public void reset() {
+        batch.refill();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Batch.BATCH)
+    public int median() {
+        int sum = 0;
+        for (int[] a : batch.arrays) sum += selector.select(a, n / 2, null);
+        return sum;
+    }
+
+    // p50, p90, p99, p99.9 in one call (Select.selectMany, independent of the engine)
+    @Benchmark
+    @OperationsPerInvocation(Batch.BATCH)
+    public int quantiles() {
+        int[] ks = {n / 2, (int) (n * 0.9), (int) (n * 0.99), (int) (n * 0.999)};
+        int sum = 0;
+        for (int[] a : batch.arrays) sum += Select.selectMany(a, ks, null)[0];
+        return sum;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.bench;
+
+import org.example.Engines;
+import org.example.IntSorter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// the *-vector engines need the module; without it they run their scalar fallback
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class SortBench {
+
+    @Param({"1000", "100000", "1000000"})
+    public int n;
+
+    @Param({"random", "sorted", "reversed", "nearlysorted", "fewunique", "zipf", "organpipe", "sawtooth"})
+    public String dist;
+
+    // any name registered in Engines
+    @Param({"mergesort", "mergesort-adaptive", "mergesort-vector", "quicksort", "quicksort-3way", "quicksort-vector", "quicksort-block", "radix"})
+    public String engine;
+
+    private IntSorter sorter;
+    private Batch batch;
+
+    @Setup(Level.Trial)
+    public void init() {
+        sorter = Engines.sorter(engine);
+        batch = new Batch(Inputs.ints(dist, n, 42));
+    }
+
+    // sorting is destructive, so every call starts from a fresh copy (not measured)
+    @Setup(Level.Invocation)
+    public void reset() {
+        batch.refill();
+    }
+
+    // time per sort: each invocation sorts the BATCH copies
+    @Benchmark
+    @OperationsPerInvocation(Batch.BATCH)
+    public int[][] sort() {
+        for (int[] a : batch.arrays) sorter.sort(a, null);
+        return batch.arrays;
+    }
+}
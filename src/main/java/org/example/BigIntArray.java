@@ -0,0 +1,14 @@
+package org.example;
+
+/**
+ * An int array with {@code long} indexes, stored outside the Java heap
+ * ({@link OffHeapIntArray}, {@link MappedIntArray}). {@link BigSort} sorts and selects on it.
+ */
+public interface BigIntArray {
+
+    long length();
+
+    int get(long i);
+
+    void set(long i, int v);
+}
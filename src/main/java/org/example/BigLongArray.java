@@ -0,0 +1,14 @@
+package org.example;
+
+/**
+ * A long array with {@code long} indexes, stored outside the Java heap
+ * ({@link OffHeapLongArray}). {@link BigSort} sorts and selects on it.
+ */
+public interface BigLongArray {
+
+    long length();
+
+    long get(long i);
+
+    void set(long i, long v);
+}
@@ -0,0 +1,350 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorting and selection with {@code long} indexes on {@link BigIntArray} /
+ * {@link BigLongArray} (off-heap or mapped), for arrays beyond {@code Integer.MAX_VALUE}
+ * elements. Same structure as the in-memory versions: quicksort with a random pivot,
+ * 3-way partition and recursion into the smaller side; top-down mergesort with one
+ * scratch array of the input's length; introselect with median-of-medians pivots
+ * after too many bad splits.
+ */
+public final class BigSort {
+
+    private static final int CUTOFF = 24;
+    private static final int SMALL = 16;
+
+    private BigSort() {}
+
+    // ---------- int: quicksort ----------
+
+    public static void quickSort(BigIntArray a, Metrics m) {
+        long t0 = System.nanoTime();
+        if (a.length() > 1) quick(a, 0, a.length() - 1, 1, new long[2], m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    // eq receives [lt, gt] of each partition, so one array serves the whole sort
+    private static void quick(BigIntArray a, long lo, long hi, int depth, long[] eq, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        while (hi - lo + 1 > CUTOFF) {
+            int pivot = a.get(ThreadLocalRandom.current().nextLong(lo, hi + 1));
+            partition3(a, lo, hi, pivot, eq, m);
+            long lt = eq[0], gt = eq[1];
+            if (m != null) m.pivots++;
+
+            if (lt - lo < hi - gt) {
+                if (lo < lt - 1) { if (m != null) m.recursions++; quick(a, lo, lt - 1, depth + 1, eq, m); }
+                lo = gt + 1;
+            } else {
+                if (gt + 1 < hi) { if (m != null) m.recursions++; quick(a, gt + 1, hi, depth + 1, eq, m); }
+                hi = lt - 1;
+            }
+        }
+        insertion(a, lo, hi + 1, m);
+    }
+
+    // a[lo, lt) < pivot == a[lt, gt] < a(gt, hi], hi inclusive
+    private static void partition3(BigIntArray a, long lo, long hi, int pivot, long[] eq, Metrics m) {
+        long lt = lo, i = lo, gt = hi;
+        long cmp = 0, sw = 0;
+        while (i <= gt) {
+            int x = a.get(i);
+            if (x < pivot) {
+                cmp++;
+                if (lt != i) { a.set(i, a.get(lt)); a.set(lt, x); sw++; }
+                lt++; i++;
+            } else if (x > pivot) {
+                cmp += 2;
+                a.set(i, a.get(gt)); a.set(gt, x); sw++;
+                gt--;
+            } else {
+                cmp += 2;
+                i++;
+            }
+        }
+        if (m != null) { m.compares += cmp; m.swaps += sw; }
+        eq[0] = lt;
+        eq[1] = gt;
+    }
+
+    // ---------- int: mergesort ----------
+
+    // buf must hold at least a.length() ints
+    public static void mergeSort(BigIntArray a, BigIntArray buf, Metrics m) {
+        if (buf.length() < a.length()) throw new IllegalArgumentException("buffer shorter than the array");
+        long t0 = System.nanoTime();
+        if (a.length() > 1) sort(a, 0, a.length(), buf, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static void sort(BigIntArray a, long lo, long hi, BigIntArray buf, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        long n = hi - lo;
+        if (n <= 1) return;
+        if (n <= CUTOFF) {
+            insertion(a, lo, hi, m);
+            return;
+        }
+
+        long mid = lo + n / 2;
+        sort(a, lo, mid, buf, depth + 1, m);
+        sort(a, mid, hi, buf, depth + 1, m);
+
+        if (m != null) m.compares++;
+        if (a.get(mid - 1) <= a.get(mid)) return;
+
+        long i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            int x = a.get(i), y = a.get(j);
+            if (x <= y) { buf.set(k++, x); i++; }
+            else        { buf.set(k++, y); j++; }
+        }
+        long cmp = k - lo;
+        while (i < mid) buf.set(k++, a.get(i++));
+        while (j < hi)  buf.set(k++, a.get(j++));
+        for (long t = lo; t < hi; t++) a.set(t, buf.get(t));
+
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += 2 * n;
+            m.merges++;
+        }
+    }
+
+    // ---------- int: selection ----------
+
+    // the k-th smallest (0-based); reorders a like Select.introSelect
+    public static int select(BigIntArray a, long k, Metrics m) {
+        long n = a.length();
+        if (n == 0 || k < 0 || k >= n) throw new IllegalArgumentException("Invalid input");
+        long t0 = System.nanoTime();
+        int budget = 2 * (64 - Long.numberOfLeadingZeros(n));
+        int res = select(a, 0, n, k, budget, 1, new long[2], m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+        return res;
+    }
+
+    // k is an absolute index in [lo, hi); budget == 0 means median-of-medians pivots only
+    private static int select(BigIntArray a, long lo, long hi, long k, int budget, int depth, long[] eq, Metrics m) {
+        if (m != null) { m.recursions++; m.depth(depth); }
+
+        while (hi - lo > SMALL) {
+            long n = hi - lo;
+            int pivot = budget > 0 ? medianOf3(a, lo, hi, m) : momPivot(a, lo, hi, depth, eq, m);
+            if (m != null) m.pivots++;
+
+            partition3(a, lo, hi - 1, pivot, eq, m);
+            long lt = eq[0], gt = eq[1];
+            if (k < lt) hi = lt;
+            else if (k > gt) lo = gt + 1;
+            else return pivot;
+
+            if (budget > 0 && hi - lo > n - n / 4) budget--;
+        }
+        insertion(a, lo, hi, m);
+        return a.get(k);
+    }
+
+    private static int medianOf3(BigIntArray a, long lo, long hi, Metrics m) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int x = a.get(r.nextLong(lo, hi)), y = a.get(r.nextLong(lo, hi)), z = a.get(r.nextLong(lo, hi));
+        if (m != null) m.compares += 3;
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+
+    // group medians are swapped to the front of the range, the recursion runs on them in place
+    private static int momPivot(BigIntArray a, long lo, long hi, int depth, long[] eq, Metrics m) {
+        long groups = 0;
+        for (long start = lo; start < hi; start += 5) {
+            long end = Math.min(start + 5, hi);
+            insertion(a, start, end, m);
+            long med = start + (end - start) / 2;
+            int t = a.get(lo + groups); a.set(lo + groups, a.get(med)); a.set(med, t);
+            groups++;
+        }
+        if (m != null) m.copies += 2 * groups;
+        return select(a, lo, lo + groups, lo + groups / 2, 0, depth + 1, eq, m);
+    }
+
+    // insertion sort на [lo, hi)
+    private static void insertion(BigIntArray a, long lo, long hi, Metrics m) {
+        long cmp = 0;
+        for (long i = lo + 1; i < hi; i++) {
+            int x = a.get(i);
+            long j = i - 1;
+            while (j >= lo && a.get(j) > x) {
+                a.set(j + 1, a.get(j));
+                j--;
+            }
+            cmp += (i - 1 - j) + (j >= lo ? 1 : 0);
+            a.set(j + 1, x);
+        }
+        if (m != null) { m.compares += cmp; m.insertionCalls++; }
+    }
+
+    // ---------- long: quicksort ----------
+
+    public static void quickSort(BigLongArray a, Metrics m) {
+        long t0 = System.nanoTime();
+        if (a.length() > 1) quick(a, 0, a.length() - 1, 1, new long[2], m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static void quick(BigLongArray a, long lo, long hi, int depth, long[] eq, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        while (hi - lo + 1 > CUTOFF) {
+            long pivot = a.get(ThreadLocalRandom.current().nextLong(lo, hi + 1));
+            partition3(a, lo, hi, pivot, eq, m);
+            long lt = eq[0], gt = eq[1];
+            if (m != null) m.pivots++;
+
+            if (lt - lo < hi - gt) {
+                if (lo < lt - 1) { if (m != null) m.recursions++; quick(a, lo, lt - 1, depth + 1, eq, m); }
+                lo = gt + 1;
+            } else {
+                if (gt + 1 < hi) { if (m != null) m.recursions++; quick(a, gt + 1, hi, depth + 1, eq, m); }
+                hi = lt - 1;
+            }
+        }
+        insertion(a, lo, hi + 1, m);
+    }
+
+    private static void partition3(BigLongArray a, long lo, long hi, long pivot, long[] eq, Metrics m) {
+        long lt = lo, i = lo, gt = hi;
+        long cmp = 0, sw = 0;
+        while (i <= gt) {
+            long x = a.get(i);
+            if (x < pivot) {
+                cmp++;
+                if (lt != i) { a.set(i, a.get(lt)); a.set(lt, x); sw++; }
+                lt++; i++;
+            } else if (x > pivot) {
+                cmp += 2;
+                a.set(i, a.get(gt)); a.set(gt, x); sw++;
+                gt--;
+            } else {
+                cmp += 2;
+                i++;
+            }
+        }
+        if (m != null) { m.compares += cmp; m.swaps += sw; }
+        eq[0] = lt;
+        eq[1] = gt;
+    }
+
+    // ---------- long: mergesort ----------
+
+    public static void mergeSort(BigLongArray a, BigLongArray buf, Metrics m) {
+        if (buf.length() < a.length()) throw new IllegalArgumentException("buffer shorter than the array");
+        long t0 = System.nanoTime();
+        if (a.length() > 1) sort(a, 0, a.length(), buf, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static void sort(BigLongArray a, long lo, long hi, BigLongArray buf, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        long n = hi - lo;
+        if (n <= 1) return;
+        if (n <= CUTOFF) {
+            insertion(a, lo, hi, m);
+            return;
+        }
+
+        long mid = lo + n / 2;
+        sort(a, lo, mid, buf, depth + 1, m);
+        sort(a, mid, hi, buf, depth + 1, m);
+
+        if (m != null) m.compares++;
+        if (a.get(mid - 1) <= a.get(mid)) return;
+
+        long i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            long x = a.get(i), y = a.get(j);
+            if (x <= y) { buf.set(k++, x); i++; }
+            else        { buf.set(k++, y); j++; }
+        }
+        long cmp = k - lo;
+        while (i < mid) buf.set(k++, a.get(i++));
+        while (j < hi)  buf.set(k++, a.get(j++));
+        for (long t = lo; t < hi; t++) a.set(t, buf.get(t));
+
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += 2 * n;
+            m.merges++;
+        }
+    }
+
+    // ---------- long: selection ----------
+
+    public static long select(BigLongArray a, long k, Metrics m) {
+        long n = a.length();
+        if (n == 0 || k < 0 || k >= n) throw new IllegalArgumentException("Invalid input");
+        long t0 = System.nanoTime();
+        int budget = 2 * (64 - Long.numberOfLeadingZeros(n));
+        long res = select(a, 0, n, k, budget, 1, new long[2], m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+        return res;
+    }
+
+    private static long select(BigLongArray a, long lo, long hi, long k, int budget, int depth, long[] eq, Metrics m) {
+        if (m != null) { m.recursions++; m.depth(depth); }
+
+        while (hi - lo > SMALL) {
+            long n = hi - lo;
+            long pivot = budget > 0 ? medianOf3(a, lo, hi, m) : momPivot(a, lo, hi, depth, eq, m);
+            if (m != null) m.pivots++;
+
+            partition3(a, lo, hi - 1, pivot, eq, m);
+            long lt = eq[0], gt = eq[1];
+            if (k < lt) hi = lt;
+            else if (k > gt) lo = gt + 1;
+            else return pivot;
+
+            if (budget > 0 && hi - lo > n - n / 4) budget--;
+        }
+        insertion(a, lo, hi, m);
+        return a.get(k);
+    }
+
+    private static long medianOf3(BigLongArray a, long lo, long hi, Metrics m) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        long x = a.get(r.nextLong(lo, hi)), y = a.get(r.nextLong(lo, hi)), z = a.get(r.nextLong(lo, hi));
+        if (m != null) m.compares += 3;
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+
+    private static long momPivot(BigLongArray a, long lo, long hi, int depth, long[] eq, Metrics m) {
+        long groups = 0;
+        for (long start = lo; start < hi; start += 5) {
+            long end = Math.min(start + 5, hi);
+            insertion(a, start, end, m);
+            long med = start + (end - start) / 2;
+            long t = a.get(lo + groups); a.set(lo + groups, a.get(med)); a.set(med, t);
+            groups++;
+        }
+        if (m != null) m.copies += 2 * groups;
+        return select(a, lo, lo + groups, lo + groups / 2, 0, depth + 1, eq, m);
+    }
+
+    private static void insertion(BigLongArray a, long lo, long hi, Metrics m) {
+        long cmp = 0;
+        for (long i = lo + 1; i < hi; i++) {
+            long x = a.get(i);
+            long j = i - 1;
+            while (j >= lo && a.get(j) > x) {
+                a.set(j + 1, a.get(j));
+                j--;
+            }
+            cmp += (i - 1 - j) + (j >= lo ? 1 : 0);
+            a.set(j + 1, x);
+        }
+        if (m != null) { m.compares += cmp; m.insertionCalls++; }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Branchless block partitioning (Edelkamp and Weiß, BlockQuicksort) and the pivot samples
+ * used with it. The scan that decides which keys are on the wrong side only stores
+ * offsets and adds 0 or 1, so it has no data-dependent branch; the misplaced keys of a
+ * left and a right block are then swapped pairwise.
+ */
+final class BlockPartition {
+
+    // keys per block; the offset buffers of one call take 2 * BLOCK ints
+    static final int BLOCK = 128;
+    // ranges at least this long use a ninther instead of a median of 3
+    static final int NINTHER = 128;
+
+    private BlockPartition() {}
+
+    /*
+     * Splits a[lo, hi) so that a[lo, s) holds keys k with k < leftStop or k <= rightStop and
+     * a[s, hi) keys with k >= leftStop or k > rightStop; returns s. A key is misplaced on
+     * the left if k >= leftStop and on the right if k <= rightStop:
+     *   leftStop = rightStop = p       keys equal to p may go either way (Hoare), which keeps
+     *                                  the split balanced on equal keys
+     *   leftStop = q, rightStop = q-1  k < q left, k >= q right
+     * off must have 2 * BLOCK ints.
+     */
+    static int split(int[] a, int lo, int hi, int leftStop, int rightStop, int[] off, Metrics m) {
+        int l = lo, r = hi - 1;
+        int numL = 0, numR = 0, startL = 0, startR = 0;
+        long cmp = 0, sw = 0;
+
+        while (r - l + 1 > 2 * BLOCK) {
+            if (numL == 0) {
+                startL = 0;
+                for (int i = 0; i < BLOCK; i++) {
+                    off[numL] = i;
+                    numL += a[l + i] >= leftStop ? 1 : 0;
+                }
+                cmp += BLOCK;
+            }
+            if (numR == 0) {
+                startR = 0;
+                for (int i = 0; i < BLOCK; i++) {
+                    off[BLOCK + numR] = i;
+                    numR += a[r - i] <= rightStop ? 1 : 0;
+                }
+                cmp += BLOCK;
+            }
+            int num = Math.min(numL, numR);
+            for (int j = 0; j < num; j++) {
+                int x = l + off[startL + j], y = r - off[BLOCK + startR + j];
+                int t = a[x]; a[x] = a[y]; a[y] = t;
+            }
+            sw += num;
+            numL -= num; numR -= num;
+            startL += num; startR += num;
+            if (numL == 0) l += BLOCK;
+            if (numR == 0) r -= BLOCK;
+        }
+
+        // at most 2 * BLOCK + BLOCK keys left in [l, r]; everything outside is in place,
+        // so a plain Hoare pass finishes (and rescans a half-used block)
+        int i = l - 1, j = r + 1;
+        while (true) {
+            do { i++; cmp++; } while (i <= r && a[i] < leftStop);
+            do { j--; cmp++; } while (j >= l && a[j] > rightStop);
+            if (i >= j) break;
+            int t = a[i]; a[i] = a[j]; a[j] = t;
+            sw++;
+        }
+        if (m != null) { m.compares += cmp; m.swaps += sw; }
+        return i;
+    }
+
+    // index of the median of a random sample: 3 keys, or 3 medians of 3 (Tukey's ninther)
+    // on ranges of at least NINTHER keys; a[lo, hi) must not be empty
+    static int pivotIndex(int[] a, int lo, int hi, Metrics m) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        if (hi - lo < NINTHER) {
+            if (m != null) m.compares += 3;
+            return median3(a, r.nextInt(lo, hi), r.nextInt(lo, hi), r.nextInt(lo, hi));
+        }
+        int third = (hi - lo) / 3;
+        int x = median3(a, r.nextInt(lo, lo + third), r.nextInt(lo, lo + third), r.nextInt(lo, lo + third));
+        int y = median3(a, r.nextInt(lo + third, hi - third), r.nextInt(lo + third, hi - third), r.nextInt(lo + third, hi - third));
+        int z = median3(a, r.nextInt(hi - third, hi), r.nextInt(hi - third, hi), r.nextInt(hi - third, hi));
+        if (m != null) m.compares += 12;
+        return median3(a, x, y, z);
+    }
+
+    private static int median3(int[] a, int i, int j, int k) {
+        int x = a[i], y = a[j], z = a[k];
+        if (x < y) {
+            if (y < z) return j;
+            return x < z ? k : i;
+        }
+        if (x < z) return i;
+        return y < z ? k : j;
+    }
+}
@@ -0,0 +1,40 @@
+package org.example;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a body once per chunk index on a fork-join pool. Used by the chunked passes of
+ * {@link RadixSort#parallelSort} and by {@link Generators}; the range of indexes is halved
+ * until one index is left, so idle workers steal whole halves.
+ */
+final class Chunks {
+
+    private Chunks() {}
+
+    // body(c) for every c in [0, chunks); returns when all have finished
+    static void forEach(ForkJoinPool pool, int chunks, IntConsumer body) {
+        if (chunks <= 0) return;
+        pool.invoke(new ChunkTask(0, chunks, body));
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private final int lo, hi;
+        private final IntConsumer body;
+
+        ChunkTask(int lo, int hi, IntConsumer body) {
+            this.lo = lo; this.hi = hi; this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                body.accept(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(lo, mid, body), new ChunkTask(mid, hi, body));
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package org.example;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public final class ClosestPair {
 
+    // parallelClosest: ranges up to this size run the sequential recursion
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+
     public static long compares = 0;
     public static long copies   = 0;
     public static int  maxDepth = 0;
@@ -17,14 +19,9 @@ public final class ClosestPair {
     }
 
     public static void saveMetricsCsv(String label, int n) {
-        double ms = lastNanos / 1_000_000.0;
-        try (PrintWriter out = new PrintWriter(new FileWriter("metrics.csv", true))) {
-            out.println(label + ", n: " + n +
-                    ", compares: " + compares +
-                    ", copies: " + copies +
-                    ", max depth: " + maxDepth +
-                    ", time ms: " + ms);
-        } catch (IOException e) { e.printStackTrace(); }
+        Metrics m = new Metrics();
+        m.compares = compares; m.copies = copies; m.maxDepth = maxDepth; m.nanos = lastNanos;
+        MetricsSink.shared().record(label, n, m);
     }
 
     public static final class Point {
@@ -33,49 +30,55 @@ public final class ClosestPair {
     }
 
     public static double closest(Point[] pts) {
-        resetMetrics();
+        Metrics m = new Metrics();
+        double d = closest(pts, m);
+        compares = m.compares; copies = m.copies; maxDepth = m.maxDepth; lastNanos = m.nanos;
+        return d;
+    }
+
+    // m == null: no counting at all
+    public static double closest(Point[] pts, Metrics m) {
         if (pts == null || pts.length < 2) return 0.0;
         Point[] px = pts.clone();
         Arrays.sort(px, (a, b) -> a.x == b.x ? Integer.compare(a.y, b.y)
                 : Integer.compare(a.x, b.x));
         Point[] tmp = new Point[px.length];
         long t0 = System.nanoTime();
-        long best2 = rec(px, tmp, 0, px.length, 1);
-        lastNanos = System.nanoTime() - t0;
+        long best2 = rec(px, tmp, 0, px.length, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
         return Math.sqrt(best2);
     }
-    private static long rec(Point[] a, Point[] tmp, int l, int r, int depth) {
-        if (depth > maxDepth) maxDepth = depth;
+    private static long rec(Point[] a, Point[] tmp, int l, int r, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
         int n = r - l;
         if (n <= 3) {
             long best2 = Long.MAX_VALUE;
             for (int i = l; i < r; i++) {
                 for (int j = i + 1; j < r; j++) {
                     long d2 = dist2(a[i], a[j]);
-                    compares++;
                     if (d2 < best2) best2 = d2;
                 }
             }
+            if (m != null) m.compares += (long) n * (n - 1) / 2;
 
             Arrays.sort(a, l, r, (p, q) -> Integer.compare(p.y, q.y));
             return best2;
         }
 
-        int m = (l + r) >>> 1;
-        int midX = a[m].x;
+        int mid = (l + r) >>> 1;
+        int midX = a[mid].x;
 
-        long left2  = rec(a, tmp, l, m, depth + 1);
-        long right2 = rec(a, tmp, m, r, depth + 1);
+        long left2  = rec(a, tmp, l, mid, depth + 1, m);
+        long right2 = rec(a, tmp, mid, r, depth + 1, m);
         long best2  = Math.min(left2, right2);
 
-        int i = l, j = m, k = l;
-        while (i < m && j < r) {
+        int i = l, j = mid, k = l;
+        while (i < mid && j < r) {
             if (a[i].y <= a[j].y) { tmp[k++] = a[i++]; }
             else                   { tmp[k++] = a[j++]; }
-            copies++;
         }
-        while (i < m) { tmp[k++] = a[i++]; copies++; }
-        while (j < r) { tmp[k++] = a[j++]; copies++; }
+        while (i < mid) { tmp[k++] = a[i++]; }
+        while (j < r) { tmp[k++] = a[j++]; }
         for (k = l; k < r; k++) a[k] = tmp[k];
         Point[] strip = new Point[n];
         int sz = 0;
@@ -84,15 +87,17 @@ public final class ClosestPair {
             if (dx*dx < best2) strip[sz++] = a[t];
         }
 
+        long cmp = 0;
         for (int p = 0; p < sz; p++) {
             for (int q = p + 1; q < sz && q <= p + 7; q++) {
                 long dy = (long)strip[q].y - strip[p].y;
-                if (dy*dy >= best2) { compares++; break; }
+                cmp++;
+                if (dy*dy >= best2) break;
                 long d2 = dist2(strip[p], strip[q]);
-                compares++;
                 if (d2 < best2) best2 = d2;
             }
         }
+        if (m != null) { m.compares += cmp; m.copies += n; }
         return best2;
     }
 
@@ -101,4 +106,293 @@ public final class ClosestPair {
         long dy = (long)a.y - b.y;
         return dx*dx + dy*dy;
     }
+
+    // ---------- struct-of-arrays engine ----------
+
+    // distance and the input indices (i < j) of the closest pair; i = j = -1 for fewer than 2 points
+    public static final class Result {
+        public final double distance;
+        public final int i, j;
+        public Result(double distance, int i, int j) { this.distance = distance; this.i = i; this.j = j; }
+    }
+
+    public static Result closest(int[] xs, int[] ys) {
+        Metrics m = new Metrics();
+        Result res = closest(xs, ys, m);
+        compares = m.compares; copies = m.copies; maxDepth = m.maxDepth; lastNanos = m.nanos;
+        return res;
+    }
+
+    // points packed as (x << 32) | (y & 0xffffffffL)
+    public static Result closest(long[] packed, Metrics m) {
+        if (packed == null) throw new IllegalArgumentException("packed must not be null");
+        int n = packed.length;
+        int[] xs = new int[n], ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = (int) (packed[i] >> 32);
+            ys[i] = (int) packed[i];
+        }
+        return closest(xs, ys, m);
+    }
+
+    // same divide and conquer as closest(Point[]), but on primitive columns:
+    // one primitive x-sort, one y-merge buffer and one strip buffer for all levels
+    public static Result closest(int[] xs, int[] ys, Metrics m) {
+        if (xs == null || ys == null || xs.length != ys.length) {
+            throw new IllegalArgumentException("xs and ys must have the same length");
+        }
+        int n = xs.length;
+        if (n < 2) return new Result(0.0, -1, -1);
+
+        Soa s = new Soa(n);
+        // (x, index) in one long: sorting the keys sorts by x without a comparator
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) keys[i] = ((long) xs[i] << 32) | i;
+        Arrays.sort(keys);
+        for (int t = 0; t < n; t++) {
+            int id = (int) keys[t];
+            s.x[t] = xs[id]; s.y[t] = ys[id]; s.id[t] = id;
+        }
+
+        long t0 = System.nanoTime();
+        Best best = new Best();
+        s.rec(0, n, 1, best, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+        return best.result();
+    }
+
+    private static final class Best {
+        long d2 = Long.MAX_VALUE;
+        int i = -1, j = -1;
+
+        void offer(long d2, int i, int j) {
+            if (d2 < this.d2) { this.d2 = d2; this.i = i; this.j = j; }
+        }
+
+        Result result() {
+            return new Result(Math.sqrt(d2), Math.min(i, j), Math.max(i, j));
+        }
+    }
+
+    // x/y/id are the points in x order (y order inside a finished range), t* is the
+    // y-merge buffer and s* the strip buffer; a range [l, r) only ever touches [l, r) of them
+    private static final class Soa {
+        final int[] x, y, id;
+        final int[] tx, ty, tid;
+        final int[] sx, sy, sid;
+
+        Soa(int n) {
+            x = new int[n]; y = new int[n]; id = new int[n];
+            tx = new int[n]; ty = new int[n]; tid = new int[n];
+            sx = new int[n]; sy = new int[n]; sid = new int[n];
+        }
+
+        // best is shared by the whole recursion: a smaller bound only narrows the strip
+        void rec(int l, int r, int depth, Best best, Metrics m) {
+            if (m != null) m.depth(depth);
+            int n = r - l;
+            if (n <= 3) {
+                for (int i = l; i < r; i++)
+                    for (int j = i + 1; j < r; j++)
+                        best.offer(dist2(x[i], y[i], x[j], y[j]), id[i], id[j]);
+                if (m != null) m.compares += (long) n * (n - 1) / 2;
+                sortByY(l, r);
+                return;
+            }
+
+            int mid = (l + r) >>> 1;
+            int midX = x[mid];
+            rec(l, mid, depth + 1, best, m);
+            rec(mid, r, depth + 1, best, m);
+            mergeByY(l, mid, r);
+            scanStrip(l, r, midX, best, m);
+            if (m != null) m.copies += n;
+        }
+
+        void mergeByY(int l, int mid, int r) {
+            mergeInto(l, mid, mid, r, l);
+            copyBack(l, r);
+        }
+
+        // stable y-merge of [i, h1) and [j, h2) into t* starting at k
+        void mergeInto(int i, int h1, int j, int h2, int k) {
+            while (i < h1 && j < h2) {
+                int src = y[i] <= y[j] ? i++ : j++;
+                tx[k] = x[src]; ty[k] = y[src]; tid[k] = id[src];
+                k++;
+            }
+            for (; i < h1; i++, k++) { tx[k] = x[i]; ty[k] = y[i]; tid[k] = id[i]; }
+            for (; j < h2; j++, k++) { tx[k] = x[j]; ty[k] = y[j]; tid[k] = id[j]; }
+        }
+
+        void copyBack(int l, int r) {
+            System.arraycopy(tx, l, x, l, r - l);
+            System.arraycopy(ty, l, y, l, r - l);
+            System.arraycopy(tid, l, id, l, r - l);
+        }
+
+        // first index in [lo, hi) with y >= v (or > v when strict)
+        int searchY(int lo, int hi, int v, boolean strict) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (y[mid] < v || (strict && y[mid] == v)) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        void scanStrip(int l, int r, int midX, Best best, Metrics m) {
+            int sz = l;
+            for (int t = l; t < r; t++) {
+                long dx = (long) x[t] - midX;
+                if (dx * dx < best.d2) { sx[sz] = x[t]; sy[sz] = y[t]; sid[sz] = id[t]; sz++; }
+            }
+
+            long cmp = 0;
+            for (int p = l; p < sz; p++) {
+                for (int q = p + 1; q < sz && q <= p + 7; q++) {
+                    long dy = (long) sy[q] - sy[p];
+                    cmp++;
+                    if (dy * dy >= best.d2) break;
+                    best.offer(dist2(sx[p], sy[p], sx[q], sy[q]), sid[p], sid[q]);
+                }
+            }
+            if (m != null) m.compares += cmp;
+        }
+
+        void sortByY(int l, int r) {
+            for (int i = l + 1; i < r; i++) {
+                int cx = x[i], cy = y[i], cid = id[i];
+                int j = i - 1;
+                while (j >= l && y[j] > cy) {
+                    x[j + 1] = x[j]; y[j + 1] = y[j]; id[j + 1] = id[j];
+                    j--;
+                }
+                x[j + 1] = cx; y[j + 1] = cy; id[j + 1] = cid;
+            }
+        }
+    }
+
+    // ---------- parallel (fork-join) ----------
+
+    public static Result parallelClosest(int[] xs, int[] ys) {
+        Metrics m = new Metrics();
+        Result res = parallelClosest(xs, ys, PARALLEL_THRESHOLD, ForkJoinPool.commonPool(), m);
+        compares = m.compares; copies = m.copies; maxDepth = m.maxDepth; lastNanos = m.nanos;
+        return res;
+    }
+
+    // the two halves run as separate tasks above the threshold, each with its own Best
+    // and its own [l, r) slice of the buffers; the x-sort and the big y-merges are parallel too
+    public static Result parallelClosest(int[] xs, int[] ys, int threshold, ForkJoinPool pool, Metrics m) {
+        if (xs == null || ys == null || xs.length != ys.length) {
+            throw new IllegalArgumentException("xs and ys must have the same length");
+        }
+        int n = xs.length;
+        if (n < 2) return new Result(0.0, -1, -1);
+        int th = Math.max(threshold, 4);
+
+        Soa s = new Soa(n);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) keys[i] = ((long) xs[i] << 32) | i;
+        Arrays.parallelSort(keys);
+        for (int t = 0; t < n; t++) {
+            int id = (int) keys[t];
+            s.x[t] = xs[id]; s.y[t] = ys[id]; s.id[t] = id;
+        }
+
+        long t0 = System.nanoTime();
+        ClosestTask root = new ClosestTask(s, 0, n, th, 1, m);
+        pool.invoke(root);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+        return root.best.result();
+    }
+
+    private static final class ClosestTask extends RecursiveAction {
+        private final Soa s;
+        private final int l, r, threshold, depth;
+        private final Metrics m;
+        final Best best = new Best();
+
+        ClosestTask(Soa s, int l, int r, int threshold, int depth, Metrics m) {
+            this.s = s; this.l = l; this.r = r; this.threshold = threshold; this.depth = depth; this.m = m;
+        }
+
+        @Override
+        protected void compute() {
+            if (r - l <= threshold) {
+                s.rec(l, r, depth, best, m);
+                return;
+            }
+            if (m != null) m.depth(depth);
+
+            int mid = (l + r) >>> 1;
+            int midX = s.x[mid];
+            ClosestTask left  = new ClosestTask(s, l, mid, threshold, depth + 1, m == null ? null : new Metrics());
+            ClosestTask right = new ClosestTask(s, mid, r, threshold, depth + 1, m == null ? null : new Metrics());
+            invokeAll(left, right);
+            if (m != null) { m.add(left.m); m.add(right.m); m.copies += r - l; }
+
+            best.offer(left.best.d2, left.best.i, left.best.j);
+            best.offer(right.best.d2, right.best.i, right.best.j);
+
+            invokeAll(new YMergeTask(s, l, mid, mid, r, l, threshold));
+            invokeAll(new CopyTask(s, l, r, threshold));
+            s.scanStrip(l, r, midX, best, m);
+        }
+    }
+
+    private static final class YMergeTask extends RecursiveAction {
+        private final Soa s;
+        private final int l1, h1, l2, h2, out, threshold;
+
+        YMergeTask(Soa s, int l1, int h1, int l2, int h2, int out, int threshold) {
+            this.s = s; this.l1 = l1; this.h1 = h1; this.l2 = l2; this.h2 = h2;
+            this.out = out; this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = h1 - l1, n2 = h2 - l2;
+            if (n1 + n2 <= threshold) {
+                s.mergeInto(l1, h1, l2, h2, out);
+                return;
+            }
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = l1 + n1 / 2;
+                m2 = s.searchY(l2, h2, s.y[m1], false);
+            } else {
+                m2 = l2 + n2 / 2;
+                m1 = s.searchY(l1, h1, s.y[m2], true);
+            }
+            int outMid = out + (m1 - l1) + (m2 - l2);
+            invokeAll(new YMergeTask(s, l1, m1, l2, m2, out, threshold),
+                      new YMergeTask(s, m1, h1, m2, h2, outMid, threshold));
+        }
+    }
+
+    private static final class CopyTask extends RecursiveAction {
+        private final Soa s;
+        private final int l, r, threshold;
+
+        CopyTask(Soa s, int l, int r, int threshold) {
+            this.s = s; this.l = l; this.r = r; this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (r - l <= threshold) {
+                s.copyBack(l, r);
+                return;
+            }
+            int mid = (l + r) >>> 1;
+            invokeAll(new CopyTask(s, l, mid, threshold), new CopyTask(s, mid, r, threshold));
+        }
+    }
+
+    private static long dist2(int ax, int ay, int bx, int by) {
+        long dx = (long) ax - bx;
+        long dy = (long) ay - by;
+        return dx*dx + dy*dy;
+    }
 }
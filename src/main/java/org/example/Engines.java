@@ -0,0 +1,80 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Named {@link IntSorter} / {@link IntSelector} implementations. The CLI, tests and
+ * benchmarks pick engines from here by name, so a new engine only needs a
+ * {@link #registerSorter} / {@link #registerSelector} call. Names are listed in
+ * registration order.
+ */
+public final class Engines {
+
+    private static final Map<String, IntSorter> SORTERS = new LinkedHashMap<>();
+    private static final Map<String, IntSelector> SELECTORS = new LinkedHashMap<>();
+
+    static {
+        registerSorter("mergesort", MergeSort::sort);
+        registerSorter("mergesort-adaptive", MergeSort::adaptiveSort);
+        registerSorter("mergesort-vector", MergeSort::vectorSort);
+        registerSorter("mergesort-parallel", (a, m) ->
+                MergeSort.parallelSort(a, MergeSort.PARALLEL_THRESHOLD, ForkJoinPool.commonPool(), m));
+        registerSorter("quicksort", (a, m) -> QuickSort.sort(a, QuickSort.Partition.LOMUTO, m));
+        registerSorter("quicksort-3way", (a, m) -> QuickSort.sort(a, QuickSort.Partition.THREE_WAY, m));
+        registerSorter("quicksort-dualpivot", (a, m) -> QuickSort.sort(a, QuickSort.Partition.DUAL_PIVOT, m));
+        registerSorter("quicksort-vector", (a, m) -> QuickSort.sort(a, QuickSort.Partition.VECTOR, m));
+        registerSorter("quicksort-block", (a, m) -> QuickSort.sort(a, QuickSort.Partition.BLOCK, m));
+        registerSorter("quicksort-parallel", (a, m) ->
+                QuickSort.parallelSort(a, QuickSort.PARALLEL_THRESHOLD, ForkJoinPool.commonPool(), m));
+        registerSorter("radix", RadixSort::sort);
+        registerSorter("radix-parallel", (a, m) -> RadixSort.parallelSort(a, ForkJoinPool.commonPool(), m));
+
+        registerSelector("mom", Select::select);
+        registerSelector("intro", (a, k, m) -> Select.introSelect(a, k, Select.Partition.SCALAR, m));
+        registerSelector("intro-vector", (a, k, m) -> Select.introSelect(a, k, Select.Partition.VECTOR, m));
+        registerSelector("intro-block", (a, k, m) -> Select.introSelect(a, k, Select.Partition.BLOCK, m));
+    }
+
+    private Engines() {}
+
+    public static synchronized void registerSorter(String name, IntSorter s) {
+        SORTERS.put(name, s);
+    }
+
+    public static synchronized void registerSelector(String name, IntSelector s) {
+        SELECTORS.put(name, s);
+    }
+
+    // false if no engine had that name
+    public static synchronized boolean unregisterSorter(String name) {
+        return SORTERS.remove(name) != null;
+    }
+
+    public static synchronized boolean unregisterSelector(String name) {
+        return SELECTORS.remove(name) != null;
+    }
+
+    public static synchronized IntSorter sorter(String name) {
+        IntSorter s = SORTERS.get(name);
+        if (s == null) throw new IllegalArgumentException("unknown sorter: " + name + " (known: " + SORTERS.keySet() + ")");
+        return s;
+    }
+
+    public static synchronized IntSelector selector(String name) {
+        IntSelector s = SELECTORS.get(name);
+        if (s == null) throw new IllegalArgumentException("unknown selector: " + name + " (known: " + SELECTORS.keySet() + ")");
+        return s;
+    }
+
+    public static synchronized List<String> sorters() {
+        return new ArrayList<>(SORTERS.keySet());
+    }
+
+    public static synchronized List<String> selectors() {
+        return new ArrayList<>(SELECTORS.keySet());
+    }
+}
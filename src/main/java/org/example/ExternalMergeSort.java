@@ -0,0 +1,262 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sorts a file of big-endian int or long records that does not fit in the heap.
+ * Runs of {@code runSize} records are sorted with {@link MergeSort} and spilled to
+ * temp files, then merged {@code fanIn} at a time through a min-heap of run readers
+ * (several passes if there are more than {@code fanIn} runs).
+ */
+public final class ExternalMergeSort {
+
+    public static final int DEFAULT_RUN_SIZE = 1 << 22;   // records per in-memory run
+    public static final int DEFAULT_FAN_IN   = 64;        // runs merged at once
+    private static final int IO_BUFFER = 1 << 16;         // bytes per channel buffer
+    // a run is one int[] / long[]: at most the largest array the JVM allocates
+    public static final int MAX_RUN_SIZE = Integer.MAX_VALUE - 8;
+
+    public enum Record {
+        INT(Integer.BYTES), LONG(Long.BYTES);
+
+        final int bytes;
+
+        Record(int bytes) { this.bytes = bytes; }
+    }
+
+    public static void sort(Path in, Path out, Record type) throws IOException {
+        sort(in, out, type, DEFAULT_RUN_SIZE, DEFAULT_FAN_IN, null, null);
+    }
+
+    // tmpDir == null: the default temp directory; m == null: no counting
+    public static void sort(Path in, Path out, Record type, int runSize, int fanIn,
+                            Path tmpDir, Metrics m) throws IOException {
+        if (runSize < 1 || runSize > MAX_RUN_SIZE || fanIn < 2) {
+            throw new IllegalArgumentException("runSize must be in [1, " + MAX_RUN_SIZE + "] and fanIn >= 2");
+        }
+        long t0 = System.nanoTime();
+        List<Path> temps = new ArrayList<>();
+        try {
+            List<Path> runs = spillRuns(in, type, runSize, tmpDir, temps, m);
+            while (runs.size() > fanIn) {
+                List<Path> next = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                    Path merged = tempFile(tmpDir, temps);
+                    merge(group, merged, type, m);
+                    for (Path p : group) Files.deleteIfExists(p);
+                    next.add(merged);
+                }
+                runs = next;
+            }
+            merge(runs, out, type, m);
+        } finally {
+            for (Path p : temps) Files.deleteIfExists(p);
+        }
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    // ---------- run generation ----------
+
+    private static List<Path> spillRuns(Path in, Record type, int runSize, Path tmpDir,
+                                        List<Path> temps, Metrics m) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(in, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size % type.bytes != 0) {
+                throw new IOException(in + ": size " + size + " is not a multiple of " + type.bytes);
+            }
+            long remaining = size / type.bytes;
+            ByteBuffer bb = ByteBuffer.allocateDirect(IO_BUFFER);
+            int cap = (int) Math.min(runSize, remaining);
+            int[] ints = type == Record.INT ? new int[cap] : null;
+            long[] longs = type == Record.LONG ? new long[cap] : null;
+
+            while (remaining > 0) {
+                int cnt = (int) Math.min(cap, remaining);
+                Path run = tempFile(tmpDir, temps);
+                try (RecordWriter w = new RecordWriter(run, type)) {
+                    if (type == Record.INT) {
+                        if (cnt < ints.length) ints = new int[cnt];   // last, shorter run
+                        readInts(ch, bb, ints);
+                        MergeSort.sort(ints, m);
+                        for (int x : ints) w.write(x);
+                    } else {
+                        if (cnt < longs.length) longs = new long[cnt];
+                        readLongs(ch, bb, longs);
+                        MergeSort.sort(longs, m);
+                        for (long x : longs) w.write(x);
+                    }
+                }
+                if (m != null) m.copies += cnt;
+                runs.add(run);
+                remaining -= cnt;
+            }
+        }
+        return runs;
+    }
+
+    private static void readInts(FileChannel ch, ByteBuffer bb, int[] a) throws IOException {
+        int i = 0;
+        while (i < a.length) {
+            // in long: a run of 2^29 ints is more bytes than an int holds
+            fill(ch, bb, (long) (a.length - i) * Integer.BYTES);
+            int c = bb.remaining() / Integer.BYTES;
+            bb.asIntBuffer().get(a, i, c);
+            i += c;
+        }
+    }
+
+    private static void readLongs(FileChannel ch, ByteBuffer bb, long[] a) throws IOException {
+        int i = 0;
+        while (i < a.length) {
+            fill(ch, bb, (long) (a.length - i) * Long.BYTES);
+            int c = bb.remaining() / Long.BYTES;
+            bb.asLongBuffer().get(a, i, c);
+            i += c;
+        }
+    }
+
+    // reads exactly min(capacity, want) bytes and flips bb for reading
+    private static void fill(FileChannel ch, ByteBuffer bb, long want) throws IOException {
+        bb.clear();
+        bb.limit((int) Math.min(bb.capacity(), want));
+        while (bb.hasRemaining()) {
+            if (ch.read(bb) < 0) throw new EOFException("file shrank while sorting");
+        }
+        bb.flip();
+    }
+
+    private static Path tempFile(Path tmpDir, List<Path> temps) throws IOException {
+        Path p = tmpDir == null ? Files.createTempFile("extsort", ".run")
+                                : Files.createTempFile(tmpDir, "extsort", ".run");
+        temps.add(p);
+        return p;
+    }
+
+    // ---------- k-way merge ----------
+
+    private static void merge(List<Path> runs, Path out, Record type, Metrics m) throws IOException {
+        RunReader[] readers = new RunReader[runs.size()];
+        try (RecordWriter w = new RecordWriter(out, type)) {
+            for (int i = 0; i < readers.length; i++) readers[i] = new RunReader(runs.get(i), type);
+
+            // heap of reader indices keyed by their current record
+            int[] heap = new int[readers.length];
+            int size = 0;
+            for (int i = 0; i < readers.length; i++) {
+                if (readers[i].next()) heap[size++] = i;
+            }
+            long cmp = 0;
+            for (int i = size / 2 - 1; i >= 0; i--) cmp += siftDown(heap, size, i, readers);
+
+            long written = 0;
+            while (size > 0) {
+                RunReader top = readers[heap[0]];
+                w.write(top.head);
+                written++;
+                if (!top.next()) heap[0] = heap[--size];
+                if (size > 0) cmp += siftDown(heap, size, 0, readers);
+            }
+            if (m != null) {
+                m.compares += cmp;
+                m.copies += written;
+                m.merges++;
+            }
+        } finally {
+            for (RunReader r : readers) if (r != null) r.close();
+        }
+    }
+
+    // returns the number of compares
+    private static int siftDown(int[] heap, int size, int i, RunReader[] readers) {
+        int cmp = 0;
+        int x = heap[i];
+        long key = readers[x].head;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= size) break;
+            if (c + 1 < size) {
+                cmp++;
+                if (readers[heap[c + 1]].head < readers[heap[c]].head) c++;
+            }
+            cmp++;
+            if (key <= readers[heap[c]].head) break;
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = x;
+        return cmp;
+    }
+
+    private static final class RunReader implements Closeable {
+        private final FileChannel ch;
+        private final ByteBuffer bb = ByteBuffer.allocateDirect(IO_BUFFER);
+        private final Record type;
+        long head;
+
+        RunReader(Path p, Record type) throws IOException {
+            this.ch = FileChannel.open(p, StandardOpenOption.READ);
+            this.type = type;
+            bb.flip();
+        }
+
+        // moves to the next record; false at end of run
+        boolean next() throws IOException {
+            if (bb.remaining() < type.bytes) {
+                bb.compact();
+                while (bb.hasRemaining() && ch.read(bb) > 0) { }
+                bb.flip();
+                if (bb.remaining() < type.bytes) return false;
+            }
+            head = type == Record.INT ? bb.getInt() : bb.getLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    private static final class RecordWriter implements Closeable {
+        private final FileChannel ch;
+        private final ByteBuffer bb = ByteBuffer.allocateDirect(IO_BUFFER);
+        private final Record type;
+
+        RecordWriter(Path p, Record type) throws IOException {
+            this.ch = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.type = type;
+        }
+
+        void write(long v) throws IOException {
+            if (bb.remaining() < type.bytes) flush();
+            if (type == Record.INT) bb.putInt((int) v); else bb.putLong(v);
+        }
+
+        private void flush() throws IOException {
+            bb.flip();
+            while (bb.hasRemaining()) ch.write(bb);
+            bb.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                ch.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * Input generators for the CLI, the tests and the benchmarks.
+ * Arrays and point sets are filled in chunks of {@link #CHUNK} elements; every chunk
+ * draws from its own {@link SplittableRandom} seeded from {@code (seed, chunk)}, so the
+ * chunks fill in parallel and the output depends only on {@code (dist, n, seed)}, not
+ * on the pool size or on whether the fill ran in parallel.
+ */
+public final class Generators {
+
+    // elements per chunk (and per random stream)
+    public static final int CHUNK = 1 << 16;
+    // below this size the chunks are filled on the calling thread
+    public static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    private static final int RANGE = 1_000_000;   // random keys and coordinates are in [-RANGE, RANGE]
+    private static final int FEW_UNIQUE = 16;
+    private static final int CLUSTER_SIZE = 1024;
+    private static final double CLUSTER_SIGMA = 1000;
+    private static final int GRID_STEP = 16;
+
+    private static final List<String> DISTS = List.of(
+            "random", "sorted", "reversed", "nearlysorted", "fewunique", "zipf", "organpipe", "sawtooth");
+    private static final List<String> POINT_DISTS = List.of("random", "clustered", "grid");
+
+    private Generators() {}
+
+    public static List<String> dists() {
+        return DISTS;
+    }
+
+    public static List<String> pointDists() {
+        return POINT_DISTS;
+    }
+
+    // ---------- int[] ----------
+
+    /*
+     * random       uniform in [-1e6, 1e6]
+     * sorted       0, 1, ..., n-1
+     * reversed     n, n-1, ..., 1
+     * nearlysorted sorted, then 1% of the positions swapped with a random position of the same chunk
+     * fewunique    uniform in [0, 16)
+     * zipf         ranks 1..n with P(k) ~ 1/k (inverse of the continuous 1/x density)
+     * organpipe    0, 1, ..., n/2, ..., 1, 0
+     * sawtooth     i mod sqrt(n): sqrt(n) ascending runs
+     */
+    public static int[] ints(String dist, int n, long seed) {
+        if (!DISTS.contains(dist)) throw unknown(dist, DISTS);
+        int[] a = new int[n];
+        int period = Math.max(1, (int) Math.sqrt(n));
+        double logN = Math.log(n + 1.0);
+
+        forEachChunk(n, c -> {
+            int lo = c * CHUNK, hi = Math.min(n, lo + CHUNK);
+            SplittableRandom r = random(seed, c);
+            switch (dist) {
+                case "random"    -> { for (int i = lo; i < hi; i++) a[i] = r.nextInt(2 * RANGE + 1) - RANGE; }
+                case "sorted"    -> { for (int i = lo; i < hi; i++) a[i] = i; }
+                case "reversed"  -> { for (int i = lo; i < hi; i++) a[i] = n - i; }
+                case "fewunique" -> { for (int i = lo; i < hi; i++) a[i] = r.nextInt(FEW_UNIQUE); }
+                case "organpipe" -> { for (int i = lo; i < hi; i++) a[i] = Math.min(i, n - 1 - i); }
+                case "sawtooth"  -> { for (int i = lo; i < hi; i++) a[i] = i % period; }
+                case "zipf" -> {
+                    // x = (n+1)^u has density ~ 1/x on [1, n+1), so floor(x) = k with P ~ log(1 + 1/k)
+                    for (int i = lo; i < hi; i++) a[i] = Math.min(n, (int) Math.exp(r.nextDouble() * logN));
+                }
+                default -> {   // nearlysorted
+                    for (int i = lo; i < hi; i++) a[i] = i;
+                    for (int s = Math.max(1, (hi - lo) / 100); s > 0; s--) {
+                        int i = r.nextInt(lo, hi), j = r.nextInt(lo, hi);
+                        int t = a[i]; a[i] = a[j]; a[j] = t;
+                    }
+                }
+            }
+        });
+        return a;
+    }
+
+    // ---------- points ----------
+
+    /*
+     * random    uniform in [-1e6, 1e6]²
+     * clustered n/1024 centres uniform in the square, points normal around a random centre
+     *           (sigma 1000): many duplicates and near-ties inside each cluster
+     * grid      row-major sqrt(n) x sqrt(n) lattice with step 16: every nearest pair is a tie
+     *           and whole columns share one x (seed is ignored)
+     */
+    public static ClosestPair.Point[] points(String dist, int n, long seed) {
+        int[][] xy = xy(dist, n, seed);
+        ClosestPair.Point[] p = new ClosestPair.Point[n];
+        int[] xs = xy[0], ys = xy[1];
+        forEachChunk(n, c -> {
+            for (int i = c * CHUNK, e = Math.min(n, i + CHUNK); i < e; i++) p[i] = new ClosestPair.Point(xs[i], ys[i]);
+        });
+        return p;
+    }
+
+    // the same points as columns {xs, ys}, for ClosestPair.closest(int[], int[])
+    public static int[][] xy(String dist, int n, long seed) {
+        if (!POINT_DISTS.contains(dist)) throw unknown(dist, POINT_DISTS);
+        int[] xs = new int[n], ys = new int[n];
+
+        int clusters = Math.max(1, n / CLUSTER_SIZE);
+        int[] cx = new int[clusters], cy = new int[clusters];
+        SplittableRandom centres = random(seed, -1);
+        for (int i = 0; i < clusters; i++) {
+            cx[i] = centres.nextInt(2 * RANGE + 1) - RANGE;
+            cy[i] = centres.nextInt(2 * RANGE + 1) - RANGE;
+        }
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+
+        forEachChunk(n, c -> {
+            int lo = c * CHUNK, hi = Math.min(n, lo + CHUNK);
+            SplittableRandom r = random(seed, c);
+            switch (dist) {
+                case "random" -> {
+                    for (int i = lo; i < hi; i++) {
+                        xs[i] = r.nextInt(2 * RANGE + 1) - RANGE;
+                        ys[i] = r.nextInt(2 * RANGE + 1) - RANGE;
+                    }
+                }
+                case "clustered" -> {
+                    for (int i = lo; i < hi; i++) {
+                        int k = r.nextInt(clusters);
+                        xs[i] = cx[k] + (int) Math.round(r.nextGaussian() * CLUSTER_SIGMA);
+                        ys[i] = cy[k] + (int) Math.round(r.nextGaussian() * CLUSTER_SIGMA);
+                    }
+                }
+                default -> {   // grid
+                    for (int i = lo; i < hi; i++) {
+                        xs[i] = (i % side) * GRID_STEP;
+                        ys[i] = (i / side) * GRID_STEP;
+                    }
+                }
+            }
+        });
+        return new int[][]{xs, ys};
+    }
+
+    // ---------- chunks ----------
+
+    // a stream per chunk: the chunk index is mixed into the seed (SplitMix64 finalizer), so
+    // neighbouring chunks do not start at neighbouring points of one SplittableRandom sequence
+    private static SplittableRandom random(long seed, int chunk) {
+        long z = seed + (chunk + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    private static void forEachChunk(int n, IntConsumer body) {
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        if (n < PARALLEL_THRESHOLD) {
+            for (int c = 0; c < chunks; c++) body.accept(c);
+        } else {
+            Chunks.forEach(ForkJoinPool.commonPool(), chunks, body);
+        }
+    }
+
+    private static IllegalArgumentException unknown(String dist, List<String> known) {
+        return new IllegalArgumentException("Unknown dist: " + dist + " (known: " + String.join(", ", known) + ")");
+    }
+}
@@ -0,0 +1,12 @@
+package org.example;
+
+/**
+ * A selection engine: returns the k-th smallest element (0-based) of {@code a}, which it
+ * may reorder, and adds its counters to {@code m} (which may be {@code null}).
+ * Engines are looked up by name in {@link Engines}.
+ */
+@FunctionalInterface
+public interface IntSelector {
+
+    int select(int[] a, int k, Metrics m);
+}
@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * A sorting engine for {@code int[]}: sorts {@code a} in place and adds its counters to
+ * {@code m} (which may be {@code null}). Engines are looked up by name in {@link Engines}.
+ */
+@FunctionalInterface
+public interface IntSorter {
+
+    void sort(int[] a, Metrics m);
+}
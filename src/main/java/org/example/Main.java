@@ -1,23 +1,58 @@
 package org.example;
 
-import java.io.FileWriter;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * Simple CLI:
- *   --algo mergesort|quicksort|select|closest
+ *   --algo <sorter>|select|closest|all
+ *                             (sorters are the names in Engines, e.g. mergesort, quicksort, radix)
+ *   --selector mom|intro      (only for select; defaults to mom)
  *   --n <size>                e.g., 10000
  *   --seed <seed>             e.g., 42
  *   --runs <count>            e.g., 3
  *   --k <index>               (only for select; defaults to n/2)
- *   --out <file>              (CSV output file; we append here. If an algorithm
- *                              also writes its own file, we duplicate the row here as well.)
+ *   --dist <name>             input distribution (default random). Arrays: random, sorted,
+ *                             reversed, nearlysorted, fewunique, zipf, organpipe, sawtooth;
+ *                             points: random, clustered, grid. With --algo all only the
+ *                             algorithms the distribution applies to are run
+ *   --out <file>              (output file; one row per run is appended here)
+ *   --format csv|bin          (csv: MetricsSink with a header line; bin: MetricsFile,
+ *                              columnar with a per-algorithm index. Default: bin if
+ *                              --out ends with .bin, else csv)
+ * Sweeps:
+ *   --sweep <from>..<to>      sizes instead of --n, e.g. 1e3..1e7
+ *   --step x<f>|+<d>          multiply (default x2) or add between sizes
+ *   --warmup <count>          unrecorded runs per point before the measured ones (default 0)
+ *   --fork                    every point runs in a fresh JVM (same classpath)
+ *   --jobs <count>            points measured concurrently (default 1); "-parallel"
+ *                             engines always run alone after the others. Meant for --fork:
+ *                             in one JVM the points share heap, GC and JIT (a warning says so)
+ *   Forked children get this JVM's -X, -XX, -D and --add-modules options
  */
 
 public final class Main {
 
+    // one measured call
+    private record Run(String algo, String label, int n, long seed, Metrics m) {}
+
+    // one (what, engine, dist, n) point of a sweep; what is sort, select or closest
+    private record Point(String what, String engine, String dist, int n) {}
+
+    private static final String ROW = "@run";
+
     public static void main(String[] args) {
         Map<String, String> opt = parseArgs(args);
 
@@ -29,107 +64,296 @@ public final class Main {
         String out  = opt.getOrDefault("out", "metrics.csv");
         Integer kOpt = opt.containsKey("k") ? parseInt(opt.get("k"), n/2) : null;
 
-        for (int run = 0; run < runs; run++) {
-            long seed = seed0 + run;
-            switch (algo) {
-                case "all" -> {
-                    int k = (kOpt != null ? kOpt : n / 2);
-                    runMergeSort(n, seed, out);
-                    runQuickSort(n, seed, out);
-                    runSelect(n, seed, k, out);
-                    runClosest(n, seed, out);
-                }
-                case "mergesort" -> runMergeSort(n, seed, out);   // << исправлено название
-                case "quicksort" -> runQuickSort(n, seed, out);
-                case "select"    -> runSelect(n, seed, (kOpt != null ? kOpt : n / 2), out);
-                case "closest"   -> runClosest(n, seed, out);
-                default -> {
-                    System.err.println("Unknown --algo: " + algo +
-                            " (use mergesort|quicksort|select|closest|all)");
-                    System.exit(2);
+        String selector = opt.getOrDefault("selector", "mom");
+        String dist = opt.getOrDefault("dist", "random").toLowerCase(Locale.ROOT);
+        int warmup  = parseInt(opt.getOrDefault("warmup", "0"), 0);
+        int jobs    = Math.max(1, parseInt(opt.getOrDefault("jobs", "1"), 1));
+        boolean fork = opt.containsKey("fork");
+
+        if (!List.of("all", "select", "closest").contains(algo) && !Engines.sorters().contains(algo)) {
+            System.err.println("Unknown --algo: " + algo +
+                    " (use " + String.join("|", Engines.sorters()) + "|select|closest|all)");
+            System.exit(2);
+        }
+        boolean arrays = Generators.dists().contains(dist), pts = Generators.pointDists().contains(dist);
+        if (!arrays && !pts
+                || !arrays && !List.of("all", "closest").contains(algo)
+                || !pts && algo.equals("closest")) {
+            System.err.println("Unknown --dist for " + algo + ": " + dist +
+                    " (arrays: " + String.join("|", Generators.dists()) +
+                    "; points: " + String.join("|", Generators.pointDists()) + ")");
+            System.exit(2);
+        }
+
+        int[] sizes;
+        try {
+            sizes = opt.containsKey("sweep") ? sizes(opt.get("sweep"), opt.getOrDefault("step", "x2")) : new int[]{n};
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        List<Point> points = new ArrayList<>();
+        for (int size : sizes) points.addAll(points(algo, selector, dist, size));
+        // one --k for every point: it must be a valid rank at the smallest size
+        int smallest = Arrays.stream(sizes).min().orElse(n);
+        if (kOpt != null && points.stream().anyMatch(p -> p.what().equals("select"))
+                && (kOpt < 0 || kOpt >= smallest)) {
+            System.err.println("--k " + kOpt + " is out of range for n = " + smallest + " (need 0 <= k < n)");
+            System.exit(2);
+        }
+
+        // a forked child: measure its points and print the rows for the parent
+        if (opt.containsKey("child")) {
+            for (Point p : points) measure(p, seed0, runs, warmup, kOpt, Main::emit);
+            return;
+        }
+
+        boolean bin = opt.getOrDefault("format", out.endsWith(".bin") ? "bin" : "csv").equals("bin");
+        if (jobs > 1 && !fork) {
+            System.err.println("Warning: --jobs " + jobs + " without --fork measures points in one JVM;"
+                    + " they share heap, GC and JIT, so their times affect each other");
+        }
+
+        try (Output sink = new Output(Paths.get(out), bin)) {
+            Consumer<Point> task = fork
+                    ? p -> forked(p, seed0, runs, warmup, kOpt, sink)
+                    : p -> measure(p, seed0, runs, warmup, kOpt, sink::record);
+            schedule(points, jobs, task);
+        } catch (IOException e) {
+            System.err.println("Cannot write to " + out + ": " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Done.");
+    }
+
+    // ---------- sweep ----------
+
+    // "1e3..1e7" with "x2" or "+5000"
+    static int[] sizes(String range, String step) {
+        String[] ft = range.split("\\.\\.");
+        if (ft.length != 2) throw new IllegalArgumentException("--sweep wants <from>..<to>, got " + range);
+        long from = (long) Double.parseDouble(ft[0]), to = (long) Double.parseDouble(ft[1]);
+        if (from < 1 || to < from || to > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("bad --sweep range: " + range);
+        }
+        double f = 0;
+        long d = 0;
+        if (step.startsWith("x")) f = Double.parseDouble(step.substring(1));
+        else if (step.startsWith("+")) d = (long) Double.parseDouble(step.substring(1));
+        if (f <= 1 && d <= 0) throw new IllegalArgumentException("--step wants x<factor > 1> or +<delta > 0>, got " + step);
+
+        List<Integer> out = new ArrayList<>();
+        for (long v = from; v <= to; ) {
+            out.add((int) v);
+            long next = d > 0 ? v + d : (long) Math.ceil(v * f);
+            v = Math.max(next, v + 1);
+        }
+        return out.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<Point> points(String algo, String selector, String dist, int n) {
+        List<Point> ps = new ArrayList<>();
+        switch (algo) {
+            case "all" -> {
+                if (Generators.dists().contains(dist)) {
+                    for (String name : Engines.sorters()) ps.add(new Point("sort", name, dist, n));
+                    for (String name : Engines.selectors()) ps.add(new Point("select", name, dist, n));
                 }
+                if (Generators.pointDists().contains(dist)) ps.add(new Point("closest", "closest", dist, n));
             }
+            case "select"  -> ps.add(new Point("select", selector, dist, n));
+            case "closest" -> ps.add(new Point("closest", "closest", dist, n));
+            default        -> ps.add(new Point("sort", algo, dist, n));
+        }
+        return ps;
+    }
 
+    // warmup runs use seeds below seed0, so they never repeat a measured input
+    private static void measure(Point p, long seed0, int runs, int warmup, Integer kOpt, Consumer<Run> out) {
+        for (int w = 1; w <= warmup; w++) run(p, seed0 - w, kOpt);
+        for (int r = 0; r < runs; r++) out.accept(run(p, seed0 + r, kOpt));
+    }
+
+    private static Run run(Point p, long seed, Integer kOpt) {
+        int k = kOpt != null ? kOpt : p.n() / 2;
+        return switch (p.what()) {
+            case "sort"   -> runSort(p.engine(), p.dist(), p.n(), seed);
+            case "select" -> runSelect(p.engine(), p.dist(), p.n(), seed, k);
+            default       -> runClosest(p.dist(), p.n(), seed);
+        };
+    }
+
+    // independent points run on `jobs` threads; engines that use the common pool
+    // themselves would skew each other's times, so they run alone at the end
+    private static void schedule(List<Point> points, int jobs, Consumer<Point> task) {
+        if (jobs == 1) {
+            points.forEach(task);
+            return;
         }
-        System.out.println("Done.");
+        List<Point> alone = new ArrayList<>(), shared = new ArrayList<>();
+        for (Point p : points) (p.engine().endsWith("-parallel") ? alone : shared).add(p);
+
+        ExecutorService ex = Executors.newFixedThreadPool(jobs);
+        try {
+            List<Future<?>> fs = new ArrayList<>();
+            for (Point p : shared) fs.add(ex.submit(() -> task.accept(p)));
+            for (Future<?> f : fs) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("sweep point failed", e.getCause());
+        } finally {
+            ex.shutdownNow();
+        }
+        alone.forEach(task);
+    }
+
+    // runs one point in a fresh JVM and records the rows it prints as they arrive
+    private static void forked(Point p, long seed0, int runs, int warmup, Integer kOpt, Output sink) {
+        List<String> cmd = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path")));
+        // same heap, GC and -D switches (-Dsimd, -Dquicksort.partition, ...) as this JVM, so a
+        // forked sweep measures what the in-process one would; agents (debuggers) stay here
+        for (String a : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (a.startsWith("-X") && !a.startsWith("-Xrunjdwp") || a.startsWith("-D") || a.startsWith("--add-modules")) {
+                cmd.add(a);
+            }
+        }
+        // the child decides Simd.enabled() the same way as this JVM
+        if (Simd.jvmOption() != null && !cmd.contains(Simd.jvmOption())) cmd.add(Simd.jvmOption());
+        cmd.addAll(List.of(
+                Main.class.getName(), "--child",
+                "--n", String.valueOf(p.n()),
+                "--dist", p.dist(),
+                "--seed", String.valueOf(seed0),
+                "--runs", String.valueOf(runs),
+                "--warmup", String.valueOf(warmup)));
+        switch (p.what()) {
+            case "sort"   -> cmd.addAll(List.of("--algo", p.engine()));
+            case "select" -> cmd.addAll(List.of("--algo", "select", "--selector", p.engine()));
+            default       -> cmd.addAll(List.of("--algo", "closest"));
+        }
+        if (kOpt != null) cmd.addAll(List.of("--k", String.valueOf(kOpt)));
+
+        try {
+            Process proc = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line = r.readLine(); line != null; line = r.readLine()) {
+                    if (line.startsWith(ROW + "\t")) sink.record(parseRow(line));
+                }
+            }
+            int code = proc.waitFor();
+            if (code != 0) throw new IllegalStateException("forked point " + p + " exited with " + code);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sweep interrupted", e);
+        }
+    }
+
+    // child -> parent: one tab-separated line per run
+    private static void emit(Run r) {
+        Metrics m = r.m();
+        System.out.println(String.join("\t", ROW, r.algo(), r.label(), String.valueOf(r.n()), String.valueOf(r.seed()),
+                String.valueOf(m.compares), String.valueOf(m.copies), String.valueOf(m.swaps),
+                String.valueOf(m.pivots), String.valueOf(m.recursions), String.valueOf(m.merges),
+                String.valueOf(m.insertionCalls), String.valueOf(m.passes), String.valueOf(m.maxDepth),
+                String.valueOf(m.nanos)));
+    }
+
+    private static Run parseRow(String line) {
+        String[] f = line.split("\t");
+        Metrics m = new Metrics();
+        m.compares = Long.parseLong(f[5]);
+        m.copies = Long.parseLong(f[6]);
+        m.swaps = Long.parseLong(f[7]);
+        m.pivots = Long.parseLong(f[8]);
+        m.recursions = Long.parseLong(f[9]);
+        m.merges = Long.parseLong(f[10]);
+        m.insertionCalls = Long.parseLong(f[11]);
+        m.passes = Long.parseLong(f[12]);
+        m.maxDepth = Integer.parseInt(f[13]);
+        m.nanos = Long.parseLong(f[14]);
+        return new Run(f[1], f[2], Integer.parseInt(f[3]), Long.parseLong(f[4]), m);
     }
 
     // ---------- runners ----------
 
-    private static void runMergeSort(int n, long seed, String out) {
-        int[] a = randArr(n, seed);
-        MergeSort.sort(a);
-        if (!isSorted(a)) throw new AssertionError("MergeSort failed");
-        String label = "ms_rand_" + n + "_seed" + seed;
-        // класс сам пишет в metrics.csv
-        MergeSort.saveMetricsCsv(label, n);
-        // дублируем строку в выбранный --out
-        appendOut(out, label, n,
-                "compares", MergeSort.compares,
-                "copies", MergeSort.copies,
-                "merges", MergeSort.merges,
-                "insertion_calls", MergeSort.insertionCalls,
-                "max_depth", MergeSort.maxDepth,
-                "time_ms", MergeSort.lastNanos / 1_000_000.0
-        );
-    }
-
-    private static void runQuickSort(int n, long seed, String out) {
-        int[] a = randArr(n, seed);
-        QuickSort.sort(a);
-        if (!isSorted(a)) throw new AssertionError("QuickSort failed");
-        String label = "qs_rand_" + n + "_seed" + seed;
-
-        long compares = getLongField(QuickSort.class, "compares");
-        long swaps    = getLongField(QuickSort.class, "swaps");
-        long pivots   = getLongField(QuickSort.class, "pivots");
-        long recs     = getLongField(QuickSort.class, "recursions");
-        long depth    = getLongField(QuickSort.class, "maxDepth");
-        long nanos    = getLongField(QuickSort.class, "lastNanos");
-        QuickSort.saveMetricsCsv(label, n);
-
-        appendOut(out, label, n,
-                "compares", compares,
-                "swaps", swaps,
-                "pivots", pivots,
-                "recursions", recs,
-                "max_depth", depth,
-                "time_ms", nanos / 1_000_000.0
-        );
-    }
-
-    private static void runSelect(int n, long seed, int k, String out) {
-        int[] a = randArr(n, seed);
-        int val = Select.select(a, k);
+    private static Run runSort(String engine, String dist, int n, long seed) {
+        int[] a = Generators.ints(dist, n, seed);
+        Metrics m = new Metrics();
+        Engines.sorter(engine).sort(a, m);
+        if (!isSorted(a)) throw new AssertionError(engine + " failed");
+        return new Run(algo(engine, dist), labelPrefix(engine) + "_" + distTag(dist) + "_" + n + "_seed" + seed, n, seed, m);
+    }
 
+    private static Run runSelect(String engine, String dist, int n, long seed, int k) {
+        int[] a = Generators.ints(dist, n, seed);
         int[] copy = a.clone();
+        Metrics m = new Metrics();
+        int val = Engines.selector(engine).select(a, k, m);
+
         Arrays.sort(copy);
-        if (val != copy[k]) throw new AssertionError("Select failed");
-
-        String label = "select_rand_" + n + "_seed" + seed + "_k" + k;
-        Select.saveMetricsCsv(label, n);
-        appendOut(out, label, n,
-                "compares", Select.compares,
-                "copies", Select.copies,
-                "recursions", Select.recursions,
-                "max_depth", Select.maxDepth,
-                "time_ms", Select.lastNanos / 1_000_000.0
-        );
-    }
-
-    private static void runClosest(int n, long seed, String out) {
-        ClosestPair.Point[] pts = randPts(n, seed);
-        double d = ClosestPair.closest(pts);
+        if (val != copy[k]) throw new AssertionError("Select (" + engine + ") failed");
+
+        String prefix = engine.equals("mom") ? "select" : "select-" + engine;
+        return new Run(algo(prefix, dist), prefix + "_" + distTag(dist) + "_" + n + "_seed" + seed + "_k" + k, n, seed, m);
+    }
+
+    private static Run runClosest(String dist, int n, long seed) {
+        ClosestPair.Point[] pts = Generators.points(dist, n, seed);
+        Metrics m = new Metrics();
+        double d = ClosestPair.closest(pts, m);
         if (d < 0) throw new AssertionError("ClosestPair failed");
 
-        String label = "closest_rand_" + n + "_seed" + seed;
-        ClosestPair.saveMetricsCsv(label, n);
-        appendOut(out, label, n,
-                "compares", ClosestPair.compares,
-                "copies", ClosestPair.copies,
-                "max_depth", ClosestPair.maxDepth,
-                "time_ms", ClosestPair.lastNanos / 1_000_000.0
-        );
+        return new Run(algo("closest", dist), "closest_" + distTag(dist) + "_" + n + "_seed" + seed, n, seed, m);
+    }
+
+    // uniform inputs keep the plain name (and "rand" in labels) so older files plot the same;
+    // other distributions get their own series, e.g. "quicksort/zipf"
+    private static String algo(String name, String dist) {
+        return dist.equals("random") ? name : name + "/" + dist;
+    }
+
+    private static String distTag(String dist) {
+        return dist.equals("random") ? "rand" : dist;
+    }
+
+    // the first three keep the labels older metrics files (and Plotter) use
+    private static String labelPrefix(String engine) {
+        return switch (engine) {
+            case "mergesort" -> "ms";
+            case "quicksort" -> "qs";
+            case "radix"     -> "radix";
+            default          -> engine;
+        };
+    }
+
+    // CSV rows carry the full label; binary rows store algo and seed as typed columns
+    private static final class Output implements AutoCloseable {
+        private final MetricsSink csv;
+        private final MetricsFile.Writer bin;
+
+        Output(Path file, boolean binary) throws IOException {
+            csv = binary ? null : MetricsSink.open(file);
+            bin = binary ? MetricsFile.append(file, true) : null;
+        }
+
+        // called from sweep threads; MetricsFile.Writer is not thread-safe
+        synchronized void record(Run r) {
+            if (bin != null) bin.record(r.algo(), r.n(), r.seed(), r.m());
+            else csv.record(r.label(), r.n(), r.m());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (bin != null) bin.close();
+            else csv.close();
+        }
     }
 
     // ---------- utils ----------
@@ -147,22 +371,6 @@ public final class Main {
         return m;
     }
 
-    private static int[] randArr(int n, long seed) {
-        Random r = new Random(seed);
-        int[] a = new int[n];
-        for (int i = 0; i < n; i++) a[i] = r.nextInt(2_000_001) - 1_000_000;
-        return a;
-    }
-
-    private static ClosestPair.Point[] randPts(int n, long seed) {
-        Random r = new Random(seed);
-        ClosestPair.Point[] a = new ClosestPair.Point[n];
-        for (int i = 0; i < n; i++)
-            a[i] = new ClosestPair.Point(r.nextInt(2_000_001) - 1_000_000,
-                    r.nextInt(2_000_001) - 1_000_000);
-        return a;
-    }
-
     private static boolean isSorted(int[] a) {
         for (int i = 1; i < a.length; i++) if (a[i-1] > a[i]) return false;
         return true;
@@ -174,26 +382,4 @@ public final class Main {
     private static long parseLong(String s, long def) {
         try { return Long.parseLong(s); } catch (Exception e) { return def; }
     }
-
-    private static void appendOut(String out, String label, int n, Object... kv) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(out, true))) {
-            StringBuilder sb = new StringBuilder(label).append(", n: ").append(n);
-            for (int i = 0; i < kv.length; i += 2) {
-                sb.append(", ").append(kv[i]).append(": ").append(kv[i + 1]);
-            }
-            pw.println(sb.toString());
-        } catch (IOException e) {
-            System.err.println("Cannot write to " + out + ": " + e.getMessage());
-        }
-    }
-
-    private static long getLongField(Class<?> clazz, String name) {
-        try {
-            var f = clazz.getField(name);
-            f.setAccessible(true);
-            Object v = f.get(null);
-            if (v instanceof Number num) return num.longValue();
-        } catch (Throwable ignored) {}
-        return -1L;
-    }
 }
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Long-indexed view of big-endian ints in a file region, backed by
+ * {@link MappedByteBuffer}s. One mapping is limited to 2 GB, so the region is
+ * mapped in chunks of {@code chunkInts} ints; reads and writes go straight to the
+ * page cache, nothing is copied to the heap.
+ */
+public final class MappedIntArray implements BigIntArray, Closeable {
+
+    public static final int DEFAULT_CHUNK_INTS = 1 << 28;   // 1 GB per mapping
+
+    private final FileChannel ch;
+    private final MappedByteBuffer[] maps;
+    private final IntBuffer[] chunks;
+    private final int shift;
+    private final long mask;
+    private final long length;
+
+    private MappedIntArray(FileChannel ch, long fromRecord, long toRecord, int chunkInts) throws IOException {
+        if (Integer.bitCount(chunkInts) != 1) throw new IllegalArgumentException("chunkInts must be a power of two");
+        if (fromRecord < 0 || toRecord < fromRecord || toRecord * Integer.BYTES > ch.size()) {
+            throw new IllegalArgumentException("region [" + fromRecord + ", " + toRecord + ") is outside the file");
+        }
+        this.ch = ch;
+        this.length = toRecord - fromRecord;
+        this.shift = Integer.numberOfTrailingZeros(chunkInts);
+        this.mask = chunkInts - 1;
+
+        int n = (int) ((length + chunkInts - 1) / chunkInts);
+        maps = new MappedByteBuffer[n];
+        chunks = new IntBuffer[n];
+        for (int c = 0; c < n; c++) {
+            long first = (long) c * chunkInts;
+            long ints = Math.min(chunkInts, length - first);
+            maps[c] = ch.map(FileChannel.MapMode.READ_WRITE, (fromRecord + first) * Integer.BYTES, ints * Integer.BYTES);
+            chunks[c] = maps[c].asIntBuffer();
+        }
+    }
+
+    // maps records [fromRecord, toRecord) of the file for reading and writing
+    public static MappedIntArray open(Path file, long fromRecord, long toRecord) throws IOException {
+        return open(file, fromRecord, toRecord, DEFAULT_CHUNK_INTS);
+    }
+
+    public static MappedIntArray open(Path file, long fromRecord, long toRecord, int chunkInts) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new MappedIntArray(ch, fromRecord, toRecord, chunkInts);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int get(long i) {
+        return chunks[(int) (i >>> shift)].get((int) (i & mask));
+    }
+
+    public void set(long i, int v) {
+        chunks[(int) (i >>> shift)].put((int) (i & mask), v);
+    }
+
+    // writes dirty pages back to the file
+    public void force() {
+        for (MappedByteBuffer b : maps) b.force();
+    }
+
+    // the mappings themselves are released when the buffers are collected
+    @Override
+    public void close() throws IOException {
+        force();
+        ch.close();
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * In-place sorting of a region of a flat big-endian int file through
+ * {@link MappedIntArray}: the long-indexed {@link BigSort} algorithms, without
+ * copying the data to the heap.
+ */
+public final class MappedSort {
+
+    // ---------- quicksort ----------
+
+    public static void quickSort(Path file, long fromRecord, long toRecord, Metrics m) throws IOException {
+        try (MappedIntArray a = MappedIntArray.open(file, fromRecord, toRecord)) {
+            quickSort(a, m);
+        }
+    }
+
+    // random pivot, 3-way partition (duplicate-heavy files stay n log n), recurse smaller
+    public static void quickSort(MappedIntArray a, Metrics m) {
+        BigSort.quickSort(a, m);
+    }
+
+    // ---------- mergesort ----------
+
+    // scratch space is a temp file of the same size (in tmpDir, or the default temp directory)
+    public static void mergeSort(Path file, long fromRecord, long toRecord, Path tmpDir, Metrics m) throws IOException {
+        long n = toRecord - fromRecord;
+        Path scratch = tmpDir == null ? Files.createTempFile("mapsort", ".buf")
+                                      : Files.createTempFile(tmpDir, "mapsort", ".buf");
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(scratch.toFile(), "rw")) {
+                raf.setLength(n * Integer.BYTES);
+            }
+            try (MappedIntArray a = MappedIntArray.open(file, fromRecord, toRecord);
+                 MappedIntArray buf = MappedIntArray.open(scratch, 0, n)) {
+                mergeSort(a, buf, m);
+            }
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    // buf must hold at least a.length() ints
+    public static void mergeSort(MappedIntArray a, MappedIntArray buf, Metrics m) {
+        BigSort.mergeSort(a, buf, m);
+    }
+}
@@ -1,11 +1,15 @@
 package org.example;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 
 public final class MergeSort {
     private static final int CUTOFF = 24;
+    // ниже этого размера подзадачи сортируются/сливаются последовательно
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
 
     public static long compares = 0;
     public static long copies = 0;
@@ -24,111 +28,841 @@ public final class MergeSort {
     }
 
     public static void saveMetricsCsv(String label, int n) {
-        double ms = lastNanos / 1_000_000.0; // ns -> ms
-        try (PrintWriter out = new PrintWriter(new FileWriter("metrics.csv", true))) {
-            System.out.println("metrics.csv -> " + new java.io.File("metrics.csv").getAbsolutePath());
-            out.println(
-                    label
-                            + ", array size: " + n
-                            + ", compares: " + compares
-                            + ", copies: " + copies
-                            + ", merges: " + merges
-                            + ", insertion calls: " + insertionCalls
-                            + ", max depth: " + maxDepth
-                            + ", time in ms: " + ms
-            );
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        Metrics m = new Metrics();
+        m.compares = compares;
+        m.copies = copies;
+        m.merges = merges;
+        m.insertionCalls = insertionCalls;
+        m.maxDepth = maxDepth;
+        m.nanos = lastNanos;
+        MetricsSink.shared().record(label, n, m);
     }
 
 
 
     public static void sort(int[] a) {
-        resetMetrics();
+        Metrics m = new Metrics();
+        sort(a, m);
+        publish(m);
+    }
+
+    // m == null: no counting at all
+    public static void sort(int[] a, Metrics m) {
         if (a == null || a.length <= 1) return;
         int[] buf = new int[a.length];
         long t0 = System.nanoTime();
-        sort(a, 0, a.length, buf, 1);
-        lastNanos = System.nanoTime() - t0;
+        sort(a, 0, a.length, buf, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    public static void parallelSort(int[] a) {
+        parallelSort(a, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    public static void parallelSort(int[] a, int threshold) {
+        parallelSort(a, threshold, ForkJoinPool.commonPool());
     }
 
-    private static void sort(int[] a, int lo, int hi, int[] buf, int depth) {
-        if (depth > maxDepth) maxDepth = depth;
+    public static void parallelSort(int[] a, int threshold, ForkJoinPool pool) {
+        Metrics m = new Metrics();
+        parallelSort(a, threshold, pool, m);
+        publish(m);
+    }
+
+    public static void parallelSort(int[] a, int threshold, ForkJoinPool pool, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        int th = Math.max(threshold, CUTOFF + 1);
+        int[] buf = new int[a.length];
+        long t0 = System.nanoTime();
+        pool.invoke(new SortTask(a, 0, a.length, buf, th, 1, m));
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    // the static fields keep the result of the last no-Metrics call
+    private static void publish(Metrics m) {
+        compares = m.compares;
+        copies = m.copies;
+        merges = (int) m.merges;
+        insertionCalls = (int) m.insertionCalls;
+        maxDepth = m.maxDepth;
+        lastNanos = m.nanos;
+    }
+
+    private static void sort(int[] a, int lo, int hi, int[] buf, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
 
         int n = hi - lo;
         if (n <= 1) return;
 
         if (n <= CUTOFF) {
-            insertion(a, lo, hi);
-            insertionCalls = insertionCalls + 1;
+            insertion(a, lo, hi, m);
             return;
         }
 
         int mid = lo + (hi - lo) / 2;
-        sort(a, lo, mid, buf, depth + 1);
-        sort(a, mid, hi, buf, depth + 1);
+        sort(a, lo, mid, buf, depth + 1, m);
+        sort(a, mid, hi, buf, depth + 1, m);
 
-        compares = compares + 1;
+        if (m != null) m.compares++;
         if (a[mid - 1] <= a[mid]) return;
 
-        merge(a, lo, mid, hi, buf);
-        merges = merges + 1;
+        merge(a, lo, mid, hi, buf, m);
     }
 
-    private static void merge(int[] a, int lo, int mid, int hi, int[] buf) {
+    // buf[lo, hi) is used as scratch, so disjoint ranges can be merged concurrently
+    private static void merge(int[] a, int lo, int mid, int hi, int[] buf, Metrics m) {
         int i = lo;
         int j = mid;
-        int k = 0;
+        int k = lo;
 
         while (i < mid && j < hi) {
-            compares = compares + 1;
             if (a[i] <= a[j]) {
                 buf[k] = a[i];
                 i = i + 1;
-                k = k + 1;
             } else {
                 buf[k] = a[j];
                 j = j + 1;
-                k = k + 1;
             }
-            copies = copies + 1;
+            k = k + 1;
         }
+        // one compare per element emitted by the loop above
+        long cmp = k - lo;
 
         while (i < mid) {
             buf[k] = a[i];
             i = i + 1;
             k = k + 1;
-            copies = copies + 1;
         }
         while (j < hi) {
             buf[k] = a[j];
             j = j + 1;
             k = k + 1;
-            copies = copies + 1;
         }
 
-        for (int t = 0; t < k; t = t + 1) {
-            a[lo + t] = buf[t];
-            copies = copies + 1;
+        System.arraycopy(buf, lo, a, lo, hi - lo);
+
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += 2L * (hi - lo);
+            m.merges++;
+        }
+    }
+
+    // ---------- vector (Simd) ----------
+
+    // the same top-down sort with Vector API kernels: ranges up to 16 keys are sorted by a
+    // bitonic network, merges of runs of at least 8 keys use a bitonic 8+8 merge.
+    // Falls back to sort(a, m) when Simd.enabled() is false.
+    public static void vectorSort(int[] a, Metrics m) {
+        if (!Simd.enabled()) {
+            sort(a, m);
+            return;
+        }
+        if (a == null || a.length <= 1) return;
+        int[] buf = new int[a.length];
+        int[] tmp = new int[2 * SimdKernels.LANES];
+        long t0 = System.nanoTime();
+        vectorSort(a, 0, a.length, buf, tmp, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static void vectorSort(int[] a, int lo, int hi, int[] buf, int[] tmp, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        int n = hi - lo;
+        if (n <= 1) return;
+
+        if (n <= 2 * SimdKernels.LANES) {
+            SimdKernels.sort16(a, lo, n, tmp);
+            if (m != null) { m.copies += 2L * n; m.insertionCalls++; }
+            return;
+        }
+
+        int mid = lo + (hi - lo) / 2;
+        vectorSort(a, lo, mid, buf, tmp, depth + 1, m);
+        vectorSort(a, mid, hi, buf, tmp, depth + 1, m);
+
+        if (m != null) m.compares++;
+        if (a[mid - 1] <= a[mid]) return;
+
+        // both halves have more than 8 keys here
+        SimdKernels.merge(a, lo, mid, hi, buf, tmp);
+        if (m != null) {
+            m.compares += (hi - lo) / SimdKernels.LANES;
+            m.copies += 2L * (hi - lo);
+            m.merges++;
+        }
+    }
+
+    // ---------- long[] (same algorithm, used for long records) ----------
+
+    public static void sort(long[] a, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        long[] buf = new long[a.length];
+        long t0 = System.nanoTime();
+        sort(a, 0, a.length, buf, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static void sort(long[] a, int lo, int hi, long[] buf, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        int n = hi - lo;
+        if (n <= 1) return;
+
+        if (n <= CUTOFF) {
+            insertion(a, lo, hi, m);
+            return;
+        }
+
+        int mid = lo + (hi - lo) / 2;
+        sort(a, lo, mid, buf, depth + 1, m);
+        sort(a, mid, hi, buf, depth + 1, m);
+
+        if (m != null) m.compares++;
+        if (a[mid - 1] <= a[mid]) return;
+
+        merge(a, lo, mid, hi, buf, m);
+    }
+
+    private static void merge(long[] a, int lo, int mid, int hi, long[] buf, Metrics m) {
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            if (a[i] <= a[j]) buf[k++] = a[i++];
+            else              buf[k++] = a[j++];
+        }
+        long cmp = k - lo;
+        while (i < mid) buf[k++] = a[i++];
+        while (j < hi)  buf[k++] = a[j++];
+        System.arraycopy(buf, lo, a, lo, hi - lo);
+
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += 2L * (hi - lo);
+            m.merges++;
+        }
+    }
+
+    private static void insertion(long[] a, int lo, int hi, Metrics m) {
+        long cmp = 0, cp = 0;
+        for (int i = lo + 1; i < hi; i++) {
+            long x = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > x) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            int shifts = i - 1 - j;
+            cmp += shifts + (j >= lo ? 1 : 0);
+            cp += shifts + 1;
+            a[j + 1] = x;
+        }
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += cp;
+            m.insertionCalls++;
+        }
+    }
+
+    // ---------- objects (stable) ----------
+
+    public static <T> void sort(T[] a, Comparator<? super T> c) {
+        sort(a, c, null);
+    }
+
+    // equal elements keep their input order
+    public static <T> void sort(T[] a, Comparator<? super T> c, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        T[] buf = a.clone();
+        long t0 = System.nanoTime();
+        sort(a, 0, a.length, buf, c, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    public static <T> void sortByIntKey(T[] a, ToIntFunction<? super T> key) {
+        sortByIntKey(a, key, null);
+    }
+
+    // keys are read once and packed as (key << 32 | index), so one long sort orders by
+    // key and keeps ties in input order; the records are then moved once
+    public static <T> void sortByIntKey(T[] a, ToIntFunction<? super T> key, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        long t0 = System.nanoTime();
+        int n = a.length;
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) packed[i] = ((long) key.applyAsInt(a[i]) << 32) | i;
+        sort(packed, 0, n, new long[n], 1, m);
+
+        T[] src = a.clone();
+        for (int i = 0; i < n; i++) a[i] = src[(int) packed[i]];
+        if (m != null) {
+            m.copies += n;
+            m.nanos = System.nanoTime() - t0;
+        }
+    }
+
+    public static <T> void sortByLongKey(T[] a, ToLongFunction<? super T> key) {
+        sortByLongKey(a, key, null);
+    }
+
+    // a long key leaves no room for the index, so keys are sorted together with a permutation
+    public static <T> void sortByLongKey(T[] a, ToLongFunction<? super T> key, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        long t0 = System.nanoTime();
+        int n = a.length;
+        long[] keys = new long[n];
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.applyAsLong(a[i]);
+            perm[i] = i;
+        }
+        sort(keys, perm, 0, n, new long[n], new int[n], 1, m);
+
+        T[] src = a.clone();
+        for (int i = 0; i < n; i++) a[i] = src[perm[i]];
+        if (m != null) {
+            m.copies += n;
+            m.nanos = System.nanoTime() - t0;
+        }
+    }
+
+    private static <T> void sort(T[] a, int lo, int hi, T[] buf, Comparator<? super T> c, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        int n = hi - lo;
+        if (n <= 1) return;
+
+        if (n <= CUTOFF) {
+            long cmp = 0, cp = 0;
+            for (int i = lo + 1; i < hi; i++) {
+                T x = a[i];
+                int j = i - 1;
+                while (j >= lo && c.compare(a[j], x) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                int shifts = i - 1 - j;
+                cmp += shifts + (j >= lo ? 1 : 0);
+                cp += shifts + 1;
+                a[j + 1] = x;
+            }
+            if (m != null) {
+                m.compares += cmp;
+                m.copies += cp;
+                m.insertionCalls++;
+            }
+            return;
+        }
+
+        int mid = lo + (hi - lo) / 2;
+        sort(a, lo, mid, buf, c, depth + 1, m);
+        sort(a, mid, hi, buf, c, depth + 1, m);
+
+        if (m != null) m.compares++;
+        if (c.compare(a[mid - 1], a[mid]) <= 0) return;
+
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            if (c.compare(a[i], a[j]) <= 0) buf[k++] = a[i++];
+            else                            buf[k++] = a[j++];
+        }
+        long cmp = k - lo;
+        while (i < mid) buf[k++] = a[i++];
+        while (j < hi)  buf[k++] = a[j++];
+        System.arraycopy(buf, lo, a, lo, hi - lo);
+
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += 2L * (hi - lo);
+            m.merges++;
+        }
+    }
+
+    // keys and perm move together; ties keep their order, so perm ends up as a stable order
+    private static void sort(long[] k, int[] p, int lo, int hi, long[] kb, int[] pb, int depth, Metrics m) {
+        if (m != null) m.depth(depth);
+
+        int n = hi - lo;
+        if (n <= 1) return;
+
+        if (n <= CUTOFF) {
+            long cmp = 0, cp = 0;
+            for (int i = lo + 1; i < hi; i++) {
+                long x = k[i];
+                int y = p[i];
+                int j = i - 1;
+                while (j >= lo && k[j] > x) {
+                    k[j + 1] = k[j];
+                    p[j + 1] = p[j];
+                    j--;
+                }
+                int shifts = i - 1 - j;
+                cmp += shifts + (j >= lo ? 1 : 0);
+                cp += shifts + 1;
+                k[j + 1] = x;
+                p[j + 1] = y;
+            }
+            if (m != null) {
+                m.compares += cmp;
+                m.copies += cp;
+                m.insertionCalls++;
+            }
+            return;
+        }
+
+        int mid = lo + (hi - lo) / 2;
+        sort(k, p, lo, mid, kb, pb, depth + 1, m);
+        sort(k, p, mid, hi, kb, pb, depth + 1, m);
+
+        if (m != null) m.compares++;
+        if (k[mid - 1] <= k[mid]) return;
+
+        int i = lo, j = mid, t = lo;
+        while (i < mid && j < hi) {
+            if (k[i] <= k[j]) { kb[t] = k[i]; pb[t++] = p[i++]; }
+            else              { kb[t] = k[j]; pb[t++] = p[j++]; }
+        }
+        long cmp = t - lo;
+        while (i < mid) { kb[t] = k[i]; pb[t++] = p[i++]; }
+        while (j < hi)  { kb[t] = k[j]; pb[t++] = p[j++]; }
+        System.arraycopy(kb, lo, k, lo, hi - lo);
+        System.arraycopy(pb, lo, p, lo, hi - lo);
+
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += 2L * (hi - lo);
+            m.merges++;
+        }
+    }
+
+    // ---------- parallel (fork-join) ----------
+
+    private static final class SortTask extends RecursiveAction {
+        private final int[] a, buf;
+        private final int lo, hi, threshold, depth;
+        private final Metrics m;
+
+        SortTask(int[] a, int lo, int hi, int[] buf, int threshold, int depth, Metrics m) {
+            this.a = a; this.lo = lo; this.hi = hi; this.buf = buf;
+            this.threshold = threshold; this.depth = depth; this.m = m;
+        }
+
+        @Override
+        protected void compute() {
+            int n = hi - lo;
+            if (n <= threshold) {
+                sort(a, lo, hi, buf, depth, m);
+                return;
+            }
+            if (m != null) m.depth(depth);
+
+            // every task counts into its own Metrics, so workers never share a counter
+            Metrics ml = m == null ? null : new Metrics();
+            Metrics mr = m == null ? null : new Metrics();
+            int mid = lo + n / 2;
+            invokeAll(new SortTask(a, lo, mid, buf, threshold, depth + 1, ml),
+                      new SortTask(a, mid, hi, buf, threshold, depth + 1, mr));
+            if (m != null) { m.add(ml); m.add(mr); m.compares++; }
+
+            if (a[mid - 1] <= a[mid]) return;
+
+            // top-level merges are split as well, otherwise one core does the last n copies
+            invokeAll(new MergeTask(a, lo, mid, mid, hi, buf, lo, threshold, m));
+            invokeAll(new CopyTask(buf, a, lo, hi, threshold));
+            if (m != null) {
+                m.copies += 2L * n;
+                m.merges++;
+            }
+        }
+    }
+
+    // stable merge of a[l1, h1) and a[l2, h2) into buf starting at out
+    private static final class MergeTask extends RecursiveAction {
+        private final int[] a, buf;
+        private final int l1, h1, l2, h2, out, threshold;
+        private final Metrics m;
+
+        MergeTask(int[] a, int l1, int h1, int l2, int h2, int[] buf, int out, int threshold, Metrics m) {
+            this.a = a; this.l1 = l1; this.h1 = h1; this.l2 = l2; this.h2 = h2;
+            this.buf = buf; this.out = out; this.threshold = threshold; this.m = m;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = h1 - l1, n2 = h2 - l2;
+            if (n1 + n2 <= threshold) {
+                long cmp = mergeInto(a, l1, h1, l2, h2, buf, out);
+                if (m != null) m.compares += cmp;
+                return;
+            }
+
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = l1 + n1 / 2;
+                m2 = lowerBound(a, l2, h2, a[m1]);
+            } else {
+                m2 = l2 + n2 / 2;
+                m1 = upperBound(a, l1, h1, a[m2]);
+            }
+            int outMid = out + (m1 - l1) + (m2 - l2);
+            Metrics ml = m == null ? null : new Metrics();
+            Metrics mr = m == null ? null : new Metrics();
+            invokeAll(new MergeTask(a, l1, m1, l2, m2, buf, out, threshold, ml),
+                      new MergeTask(a, m1, h1, m2, h2, buf, outMid, threshold, mr));
+            if (m != null) { m.add(ml); m.add(mr); }
+        }
+    }
+
+    private static final class CopyTask extends RecursiveAction {
+        private final int[] src, dst;
+        private final int lo, hi, threshold;
+
+        CopyTask(int[] src, int[] dst, int lo, int hi, int threshold) {
+            this.src = src; this.dst = dst; this.lo = lo; this.hi = hi; this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold) {
+                System.arraycopy(src, lo, dst, lo, hi - lo);
+                return;
+            }
+            int mid = lo + (hi - lo) / 2;
+            invokeAll(new CopyTask(src, dst, lo, mid, threshold),
+                      new CopyTask(src, dst, mid, hi, threshold));
+        }
+    }
+
+    // returns the number of compares
+    private static long mergeInto(int[] a, int i, int h1, int j, int h2, int[] buf, int k) {
+        int k0 = k;
+        while (i < h1 && j < h2) {
+            if (a[i] <= a[j]) buf[k++] = a[i++];
+            else              buf[k++] = a[j++];
+        }
+        long cmp = k - k0;
+        while (i < h1) buf[k++] = a[i++];
+        while (j < h2) buf[k++] = a[j++];
+        return cmp;
+    }
+
+    // first index in [lo, hi) with a[idx] >= x
+    private static int lowerBound(int[] a, int lo, int hi, int x) {
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (a[m] < x) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    // first index in [lo, hi) with a[idx] > x
+    private static int upperBound(int[] a, int lo, int hi, int x) {
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (a[m] <= x) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    // ---------- adaptive (natural runs + galloping) ----------
+
+    public static void adaptiveSort(int[] a) {
+        Metrics m = new Metrics();
+        adaptiveSort(a, m);
+        publish(m);
+    }
+
+    // one scan finds ascending and strictly descending runs (the latter are reversed,
+    // which keeps equal keys in order), short runs are extended to minRun by insertion,
+    // and the run stack is collapsed TimSort-style with galloping merges.
+    // Sorted input costs n - 1 compares, an appended tail of k keys about k log n.
+    public static void adaptiveSort(int[] a, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        long t0 = System.nanoTime();
+        new Runs(a).sort(m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static final class Runs {
+        private static final int MIN_MERGE = 64;
+        private static final int MIN_GALLOP = 7;
+
+        private final int[] a;
+        private int[] buf = new int[0];
+        // 49 pending runs are enough for any int-indexed array (run lengths grow like Fibonacci)
+        private final int[] runBase = new int[49];
+        private final int[] runLen = new int[49];
+        private int size;
+        private long cmp, cp, merges;
+
+        Runs(int[] a) {
+            this.a = a;
+        }
+
+        void sort(Metrics m) {
+            int n = a.length;
+            int minRun = minRun(n);
+            int lo = 0;
+            while (lo < n) {
+                int len = runFrom(lo, n);
+                if (len < minRun) {
+                    int end = Math.min(lo + minRun, n);
+                    insertion(a, lo, end, m);   // the prefix is already sorted: one compare per key of it
+                    len = end - lo;
+                }
+                runBase[size] = lo;
+                runLen[size] = len;
+                size++;
+                collapse();
+                lo += len;
+            }
+            while (size > 1) {
+                int i = size - 2;
+                if (i > 0 && runLen[i - 1] < runLen[i + 1]) i--;
+                mergeAt(i);
+            }
+            if (m != null) {
+                m.compares += cmp;
+                m.copies += cp;
+                m.merges += merges;
+                m.depth(1);
+            }
+        }
+
+        // TimSort's minrun: n for small arrays, otherwise in [32, 64] so n / minRun is close to a power of two
+        private static int minRun(int n) {
+            int r = 0;
+            while (n >= MIN_MERGE) {
+                r |= n & 1;
+                n >>= 1;
+            }
+            return n + r;
+        }
+
+        // length of the run starting at lo; a strictly descending run is reversed in place
+        private int runFrom(int lo, int hi) {
+            int i = lo + 1;
+            if (i == hi) return 1;
+            if (a[i] < a[lo]) {
+                while (i + 1 < hi && a[i + 1] < a[i]) i++;
+                for (int l = lo, r = i; l < r; l++, r--) {
+                    int t = a[l]; a[l] = a[r]; a[r] = t;
+                }
+            } else {
+                while (i + 1 < hi && a[i + 1] >= a[i]) i++;
+            }
+            // every step compared one pair, plus the compare that ended the run
+            cmp += i - lo + (i + 1 < hi ? 1 : 0);
+            return i + 1 - lo;
+        }
+
+        // keeps runLen[i - 2] > runLen[i - 1] + runLen[i] and runLen[i - 1] > runLen[i]
+        // on the whole stack (the corrected TimSort rule that also checks one level deeper)
+        private void collapse() {
+            while (size > 1) {
+                int i = size - 2;
+                if (i > 0 && runLen[i - 1] <= runLen[i] + runLen[i + 1]
+                        || i > 1 && runLen[i - 2] <= runLen[i - 1] + runLen[i]) {
+                    if (runLen[i - 1] < runLen[i + 1]) i--;
+                } else if (runLen[i] > runLen[i + 1]) {
+                    break;
+                }
+                mergeAt(i);
+            }
+        }
+
+        // merges runs i and i + 1 of the stack
+        private void mergeAt(int i) {
+            int base1 = runBase[i], len1 = runLen[i];
+            int base2 = runBase[i + 1], len2 = runLen[i + 1];
+            runLen[i] = len1 + len2;
+            if (i == size - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            size--;
+            merges++;
+
+            // the head of run 1 that is <= a[base2] and the tail of run 2 that is >= the
+            // last key of run 1 are already in place
+            int k = gallop(a[base2], a, base1, base1 + len1, false, false);
+            len1 -= k - base1;
+            base1 = k;
+            if (len1 == 0) return;
+            int e = gallop(a[base1 + len1 - 1], a, base2, base2 + len2, true, true);
+            len2 = e - base2;
+            if (len2 == 0) return;
+
+            if (len1 <= len2) mergeLo(base1, len1, base2, len2);
+            else              mergeHi(base1, len1, base2, len2);
+        }
+
+        private int[] buffer(int len) {
+            if (buf.length < len) buf = new int[Math.max(len, Math.min(a.length, 2 * buf.length))];
+            return buf;
+        }
+
+        // run 1 goes to the buffer and the merge runs front to back;
+        // a[base1] > a[base2] and run 1 ends above run 2's last key
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            int[] t = buffer(len1);
+            System.arraycopy(a, base1, t, 0, len1);
+            int i = 0, j = base2, k = base1, end2 = base2 + len2;
+            cp += len1;
+            long c = 0;
+
+            outer:
+            while (true) {
+                int win1 = 0, win2 = 0;
+                // one key at a time until one side wins MIN_GALLOP times in a row
+                while (win1 < MIN_GALLOP && win2 < MIN_GALLOP) {
+                    c++;
+                    if (a[j] < t[i]) {
+                        a[k++] = a[j++];
+                        win2++; win1 = 0;
+                        if (j == end2) break outer;
+                    } else {
+                        a[k++] = t[i++];
+                        win1++; win2 = 0;
+                        if (i == len1) break outer;
+                    }
+                }
+                // galloping: move whole blocks while they stay long
+                int n1, n2;
+                do {
+                    int g = gallop(a[j], t, i, len1, false, false);
+                    c += log2(g - i + 1) * 2L + 1;
+                    n1 = g - i;
+                    System.arraycopy(t, i, a, k, n1);
+                    i = g; k += n1;
+                    if (i == len1) break outer;
+                    a[k++] = a[j++];
+                    if (j == end2) break outer;
+
+                    g = gallop(t[i], a, j, end2, true, false);
+                    c += log2(g - j + 1) * 2L + 1;
+                    n2 = g - j;
+                    System.arraycopy(a, j, a, k, n2);
+                    j = g; k += n2;
+                    if (j == end2) break outer;
+                    a[k++] = t[i++];
+                    if (i == len1) break outer;
+                } while (n1 >= MIN_GALLOP || n2 >= MIN_GALLOP);
+            }
+            // whatever is left of run 2 is already in place
+            if (i < len1) System.arraycopy(t, i, a, k, len1 - i);
+            cmp += c;
+            cp += len1 + (j - base2);
+        }
+
+        // mirror image of mergeLo: run 2 goes to the buffer and the merge runs back to front
+        private void mergeHi(int base1, int len1, int base2, int len2) {
+            int[] t = buffer(len2);
+            System.arraycopy(a, base2, t, 0, len2);
+            int i = base1 + len1 - 1, j = len2 - 1, k = base2 + len2 - 1;
+            cp += len2;
+            long c = 0;
+
+            outer:
+            while (true) {
+                int win1 = 0, win2 = 0;
+                while (win1 < MIN_GALLOP && win2 < MIN_GALLOP) {
+                    c++;
+                    if (a[i] > t[j]) {
+                        a[k--] = a[i--];
+                        win1++; win2 = 0;
+                        if (i < base1) break outer;
+                    } else {
+                        a[k--] = t[j--];
+                        win2++; win1 = 0;
+                        if (j < 0) break outer;
+                    }
+                }
+                int n1, n2;
+                do {
+                    // keys of run 1 above t[j] go after it
+                    int g = gallop(t[j], a, base1, i + 1, false, true);
+                    c += log2(i + 2 - g) * 2L + 1;
+                    n1 = i + 1 - g;
+                    System.arraycopy(a, g, a, k - n1 + 1, n1);
+                    i = g - 1; k -= n1;
+                    if (i < base1) break outer;
+                    a[k--] = t[j--];
+                    if (j < 0) break outer;
+
+                    // keys of run 2 that are >= a[i] go after it
+                    g = gallop(a[i], t, 0, j + 1, true, true);
+                    c += log2(j + 2 - g) * 2L + 1;
+                    n2 = j + 1 - g;
+                    System.arraycopy(t, g, a, k - n2 + 1, n2);
+                    j = g - 1; k -= n2;
+                    if (j < 0) break outer;
+                    a[k--] = a[i--];
+                    if (i < base1) break outer;
+                } while (n1 >= MIN_GALLOP || n2 >= MIN_GALLOP);
+            }
+            // whatever is left of run 1 is already in place
+            if (j >= 0) System.arraycopy(t, 0, a, k - j, j + 1);
+            cmp += c;
+            cp += len2 + (base1 + len1 - 1 - i);
+        }
+
+        // first index in [lo, hi) with x[idx] > key (orEqual: >= key). The search
+        // probes 1, 2, 4, ... keys away from one end (fromEnd picks which) and then
+        // bisects the last gap, so a block of length d costs O(log d) compares.
+        private static int gallop(int key, int[] x, int lo, int hi, boolean orEqual, boolean fromEnd) {
+            if (!fromEnd) {
+                long step = 1;
+                int r = lo;
+                while (r < hi && !(x[r] > key || orEqual && x[r] == key)) {
+                    lo = r + 1;
+                    r = (int) Math.min(hi, lo + step);
+                    step <<= 1;
+                }
+                hi = r;
+            } else {
+                long step = 1;
+                int l = hi - 1;
+                while (l >= lo && (x[l] > key || orEqual && x[l] == key)) {
+                    hi = l;
+                    l = (int) Math.max(lo - 1L, hi - step);
+                    step <<= 1;
+                }
+                lo = l + 1;
+            }
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (x[mid] > key || orEqual && x[mid] == key) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo;
+        }
+
+        private static int log2(int x) {
+            return 31 - Integer.numberOfLeadingZeros(x);
         }
     }
 
     // insertion sort на подотрезке [lo, hi)
-    private static void insertion(int[] a, int lo, int hi) {
+    private static void insertion(int[] a, int lo, int hi, Metrics m) {
+        long cmp = 0, cp = 0;
         for (int i = lo + 1; i < hi; i = i + 1) {
             int x = a[i];
             int j = i - 1;
             while (j >= lo && a[j] > x) {
-                compares = compares + 1;
                 a[j + 1] = a[j];
-                copies = copies + 1;
                 j = j - 1;
             }
-
-            if (j >= lo) compares = compares + 1;
+            // (i - 1 - j) shifts, each after a true compare, plus the compare that stopped the scan
+            int shifts = i - 1 - j;
+            cmp += shifts + (j >= lo ? 1 : 0);
+            cp += shifts + 1;
             a[j + 1] = x;
-            copies = copies + 1;
+        }
+        if (m != null) {
+            m.compares += cmp;
+            m.copies += cp;
+            m.insertionCalls++;
         }
     }
-}
\ No newline at end of file
+}
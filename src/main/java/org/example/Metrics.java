@@ -0,0 +1,62 @@
+package org.example;
+
+/**
+ * Per-call counters. Pass a fresh instance to the {@code (..., Metrics m)} overloads
+ * to get exact numbers from concurrent calls; pass {@code null} to switch counting off.
+ * Not thread-safe: one instance belongs to one call (fork-join tasks use their own
+ * and {@link #add} them on join).
+ */
+public final class Metrics {
+
+    public long compares   = 0;
+    public long copies     = 0;
+    public long swaps      = 0;
+    public long pivots     = 0;
+    public long recursions = 0;
+    public long merges     = 0;
+    public long insertionCalls = 0;
+    public long passes     = 0;   // distribution passes (RadixSort)
+    public int  maxDepth   = 0;
+    public long nanos      = 0;
+
+    public void depth(int d) {
+        if (d > maxDepth) maxDepth = d;
+    }
+
+    // folds a child task's counters into this one; nanos is owned by the caller
+    public void add(Metrics o) {
+        compares += o.compares;
+        copies += o.copies;
+        swaps += o.swaps;
+        pivots += o.pivots;
+        recursions += o.recursions;
+        merges += o.merges;
+        insertionCalls += o.insertionCalls;
+        passes += o.passes;
+        if (o.maxDepth > maxDepth) maxDepth = o.maxDepth;
+    }
+
+    public void reset() {
+        compares = copies = swaps = pivots = recursions = merges = insertionCalls = passes = 0;
+        maxDepth = 0;
+        nanos = 0;
+    }
+
+    public double millis() {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "compares: " + compares
+                + ", copies: " + copies
+                + ", swaps: " + swaps
+                + ", pivots: " + pivots
+                + ", recursions: " + recursions
+                + ", merges: " + merges
+                + ", insertion calls: " + insertionCalls
+                + ", passes: " + passes
+                + ", max depth: " + maxDepth
+                + ", time in ms: " + millis();
+    }
+}
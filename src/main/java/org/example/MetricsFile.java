@@ -0,0 +1,385 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Binary columnar metrics file. Rows are buffered into blocks of up to
+ * {@link #BLOCK_ROWS}; a block stores each column contiguously with a fixed type, and
+ * algorithm names are dictionary-coded (a block carries the names it introduces).
+ * All numbers are big-endian:
+ * <pre>
+ * file    = MAGIC VERSION block* [index] trailer
+ * block   = BLOCK_MAGIC rows:int newNames:int (len:short utf8)*
+ *           algo:int[rows] n:int[rows] seed:long[rows]
+ *           compares copies swaps pivots recursions merges insertionCalls passes :long[rows] each
+ *           maxDepth:int[rows] nanos:long[rows]
+ * index   = INDEX_MAGIC algos:int (blocks:int offset:long[blocks])*   (per algorithm id)
+ * trailer = indexOffset:long (-1 without index) END_MAGIC
+ * </pre>
+ * Blocks can be read front to back without the trailer, so a file whose writer died
+ * loses only its last unflushed block. The index lets a reader skip blocks that hold
+ * no rows of the algorithms it asks for.
+ */
+public final class MetricsFile {
+
+    public static final int MAGIC = 0x4D545258;          // "MTRX"
+    public static final int VERSION = 1;
+    public static final int BLOCK_ROWS = 4096;
+    private static final int BLOCK_MAGIC = 0x424C4B31;   // "BLK1"
+    private static final int INDEX_MAGIC = 0x49445831;   // "IDX1"
+    private static final int END_MAGIC = 0x454E4431;     // "END1"
+    private static final int TRAILER = Long.BYTES + Integer.BYTES;
+
+    // bytes per row over all columns: 3 ints, 10 longs
+    private static final int ROW_BYTES = 3 * Integer.BYTES + 10 * Long.BYTES;
+
+    private MetricsFile() {}
+
+    // true if the file starts with the binary magic (Plotter uses this to pick a parser)
+    public static boolean isMetricsFile(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(Integer.BYTES);
+            while (b.hasRemaining() && ch.read(b) > 0) { }
+            return !b.hasRemaining() && b.getInt(0) == MAGIC;
+        }
+    }
+
+    /** One decoded row. The reader reuses a single instance, so copy what must be kept. */
+    public static final class Row {
+        public String algo;
+        public int n;
+        public long seed;
+        public final Metrics m = new Metrics();
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void row(Row r);
+    }
+
+    // ---------- writing ----------
+
+    public static Writer append(Path file, boolean index) throws IOException {
+        return new Writer(file, index);
+    }
+
+    /**
+     * Appends rows to a new or existing file. An existing file is scanned once (block
+     * headers and the algo column only) to recover the dictionary and index; its old
+     * index and trailer are overwritten and rewritten on {@link #close}.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final FileChannel ch;
+        private final boolean index;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<List<Long>> blocksOf = new ArrayList<>();   // algo id -> block offsets
+        private int flushedNames;
+
+        private final int[] algo = new int[BLOCK_ROWS], n = new int[BLOCK_ROWS], depth = new int[BLOCK_ROWS];
+        private final long[][] longs = new long[10][BLOCK_ROWS];   // seed, 8 counters, nanos
+        private int rows;
+        private boolean closed;
+
+        private Writer(Path file, boolean index) throws IOException {
+            this.index = index;
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                if (ch.size() == 0) {
+                    ByteBuffer h = ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION);
+                    writeFully(h.flip(), 0);
+                    ch.position(h.capacity());
+                } else {
+                    recover();
+                }
+            } catch (IOException | RuntimeException e) {
+                ch.close();
+                throw e;
+            }
+        }
+
+        public void record(String algoName, int n, long seed, Metrics m) {
+            if (closed) throw new IllegalStateException("metrics file is closed");
+            Integer id = ids.get(algoName);
+            if (id == null) {
+                id = names.size();
+                ids.put(algoName, id);
+                names.add(algoName);
+                blocksOf.add(new ArrayList<>());
+            }
+            int r = rows;
+            algo[r] = id;
+            this.n[r] = n;
+            longs[0][r] = seed;
+            longs[1][r] = m.compares;
+            longs[2][r] = m.copies;
+            longs[3][r] = m.swaps;
+            longs[4][r] = m.pivots;
+            longs[5][r] = m.recursions;
+            longs[6][r] = m.merges;
+            longs[7][r] = m.insertionCalls;
+            longs[8][r] = m.passes;
+            longs[9][r] = m.nanos;
+            depth[r] = m.maxDepth;
+            if (++rows == BLOCK_ROWS) {
+                try {
+                    flushBlock();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                flushBlock();
+                long pos = ch.position(), indexOffset = -1;
+                if (index) {
+                    int size = 2 * Integer.BYTES;
+                    for (List<Long> l : blocksOf) size += Integer.BYTES + l.size() * Long.BYTES;
+                    ByteBuffer b = ByteBuffer.allocate(size).putInt(INDEX_MAGIC).putInt(blocksOf.size());
+                    for (List<Long> l : blocksOf) {
+                        b.putInt(l.size());
+                        for (long off : l) b.putLong(off);
+                    }
+                    writeFully(b.flip(), pos);
+                    indexOffset = pos;
+                    pos += size;
+                }
+                ByteBuffer t = ByteBuffer.allocate(TRAILER).putLong(indexOffset).putInt(END_MAGIC);
+                writeFully(t.flip(), pos);
+                ch.truncate(pos + TRAILER);
+            } finally {
+                ch.close();
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (rows == 0) return;
+            int r = rows;
+            List<byte[]> fresh = new ArrayList<>();
+            int dictBytes = 0;
+            for (int i = flushedNames; i < names.size(); i++) {
+                byte[] s = names.get(i).getBytes(StandardCharsets.UTF_8);
+                fresh.add(s);
+                dictBytes += Short.BYTES + s.length;
+            }
+            ByteBuffer b = ByteBuffer.allocate(3 * Integer.BYTES + dictBytes + r * ROW_BYTES);
+            b.putInt(BLOCK_MAGIC).putInt(r).putInt(fresh.size());
+            for (byte[] s : fresh) b.putShort((short) s.length).put(s);
+            b.asIntBuffer().put(algo, 0, r);
+            b.position(b.position() + r * Integer.BYTES);
+            b.asIntBuffer().put(n, 0, r);
+            b.position(b.position() + r * Integer.BYTES);
+            for (int c = 0; c < 9; c++) {
+                b.asLongBuffer().put(longs[c], 0, r);
+                b.position(b.position() + r * Long.BYTES);
+            }
+            b.asIntBuffer().put(depth, 0, r);
+            b.position(b.position() + r * Integer.BYTES);
+            b.asLongBuffer().put(longs[9], 0, r);
+            b.position(b.position() + r * Long.BYTES);
+
+            long offset = ch.position();
+            writeFully(b.flip(), offset);
+            ch.position(offset + b.capacity());
+            noteBlock(offset, algo, r);
+            flushedNames = names.size();
+            rows = 0;
+        }
+
+        private void noteBlock(long offset, int[] algoCol, int r) {
+            boolean[] seen = new boolean[names.size()];
+            for (int i = 0; i < r; i++) {
+                int id = algoCol[i];
+                if (!seen[id]) {
+                    seen[id] = true;
+                    blocksOf.get(id).add(offset);
+                }
+            }
+        }
+
+        // rebuilds dictionary and index from the blocks of an existing file
+        private void recover() throws IOException {
+            Scanner s = new Scanner(ch);
+            long end = s.blocks((offset, rowCount, newNames, algoCol) -> {
+                for (String name : newNames) {
+                    ids.put(name, names.size());
+                    names.add(name);
+                    blocksOf.add(new ArrayList<>());
+                }
+                noteBlock(offset, algoCol, rowCount);
+            });
+            flushedNames = names.size();
+            ch.truncate(end);   // drops the old index and trailer
+            ch.position(end);
+        }
+
+        private void writeFully(ByteBuffer b, long at) throws IOException {
+            while (b.hasRemaining()) at += ch.write(b, at);
+        }
+    }
+
+    // ---------- reading ----------
+
+    // visits every row in file order
+    public static void read(Path file, RowVisitor v) throws IOException {
+        read(file, null, v);
+    }
+
+    // visits the rows of the given algorithms only (null: all); with an index the other
+    // blocks are not even mapped
+    public static void read(Path file, Set<String> algos, RowVisitor v) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            Scanner s = new Scanner(ch);
+            // dictionary ids are assigned in block order, so every block header is read
+            List<String> names = new ArrayList<>();
+            s.blocks((offset, rows, newNames, algoCol) -> names.addAll(newNames), false);
+            long[] wanted = algos == null ? null : s.indexedBlocks(algos, names);
+            if (wanted != null) {
+                for (long off : wanted) s.visit(off, names, algos, v);
+            } else {
+                for (long off : s.offsets) s.visit(off, names, algos, v);
+            }
+        }
+    }
+
+    private interface BlockVisitor {
+        void block(long offset, int rows, List<String> newNames, int[] algoCol);
+    }
+
+    private static final class Scanner {
+        private final FileChannel ch;
+        final List<Long> offsets = new ArrayList<>();
+
+        Scanner(FileChannel ch) throws IOException {
+            this.ch = ch;
+            ByteBuffer h = read(0, 2 * Integer.BYTES);
+            if (h == null || h.getInt() != MAGIC) throw new IOException("not a metrics file");
+            if (h.getInt() != VERSION) throw new IOException("unsupported metrics file version");
+        }
+
+        long blocks(BlockVisitor v) throws IOException {
+            return blocks(v, true);
+        }
+
+        // walks the block headers; returns the offset just past the last complete block
+        long blocks(BlockVisitor v, boolean withAlgo) throws IOException {
+            offsets.clear();
+            long pos = 2 * Integer.BYTES;
+            long size = ch.size();
+            while (true) {
+                ByteBuffer h = read(pos, 3 * Integer.BYTES);
+                if (h == null || h.getInt() != BLOCK_MAGIC) return pos;
+                int rows = h.getInt(), fresh = h.getInt();
+                long p = pos + 3 * Integer.BYTES;
+                List<String> newNames = new ArrayList<>(fresh);
+                for (int i = 0; i < fresh; i++) {
+                    ByteBuffer l = read(p, Short.BYTES);
+                    if (l == null) return pos;
+                    int len = l.getShort() & 0xFFFF;
+                    ByteBuffer s = read(p + Short.BYTES, len);
+                    if (s == null) return pos;
+                    newNames.add(new String(s.array(), StandardCharsets.UTF_8));
+                    p += Short.BYTES + len;
+                }
+                long end = p + (long) rows * ROW_BYTES;
+                if (end > size) return pos;   // torn block at the end
+                int[] algoCol = null;
+                if (withAlgo) {
+                    ByteBuffer a = read(p, rows * Integer.BYTES);
+                    algoCol = new int[rows];
+                    a.asIntBuffer().get(algoCol);
+                }
+                v.block(pos, rows, newNames, algoCol);
+                offsets.add(pos);
+                pos = end;
+            }
+        }
+
+        // block offsets holding any of the algorithms, or null if the file has no index
+        long[] indexedBlocks(Set<String> algos, List<String> names) throws IOException {
+            long size = ch.size();
+            ByteBuffer t = size >= TRAILER ? read(size - TRAILER, TRAILER) : null;
+            if (t == null || t.getInt(Long.BYTES) != END_MAGIC) return null;
+            long at = t.getLong(0);
+            if (at < 0) return null;
+
+            ByteBuffer idx = read(at, (int) (size - TRAILER - at));
+            if (idx.getInt() != INDEX_MAGIC) return null;
+            int count = idx.getInt();
+            TreeSet<Long> out = new TreeSet<>();
+            for (int id = 0; id < count; id++) {
+                int blocks = idx.getInt();
+                boolean take = id < names.size() && algos.contains(names.get(id));
+                for (int i = 0; i < blocks; i++) {
+                    long off = idx.getLong();
+                    if (take) out.add(off);
+                }
+            }
+            long[] res = new long[out.size()];
+            int i = 0;
+            for (long off : out) res[i++] = off;
+            return res;
+        }
+
+        // maps one block and feeds its rows column by column into a reused Row
+        void visit(long offset, List<String> names, Set<String> algos, RowVisitor v) throws IOException {
+            ByteBuffer h = read(offset, 3 * Integer.BYTES);
+            int rows = h.getInt(4), fresh = h.getInt(8);
+            long p = offset + 3 * Integer.BYTES;
+            for (int i = 0; i < fresh; i++) {
+                p += Short.BYTES + (read(p, Short.BYTES).getShort() & 0xFFFF);
+            }
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, p, (long) rows * ROW_BYTES);
+
+            int algoAt = 0, nAt = rows * Integer.BYTES, longAt = 2 * rows * Integer.BYTES;
+            int depthAt = longAt + 9 * rows * Long.BYTES, nanosAt = depthAt + rows * Integer.BYTES;
+            Row r = new Row();
+            Metrics m = r.m;
+            for (int i = 0; i < rows; i++) {
+                String name = names.get(b.getInt(algoAt + i * Integer.BYTES));
+                if (algos != null && !algos.contains(name)) continue;
+                r.algo = name;
+                r.n = b.getInt(nAt + i * Integer.BYTES);
+                int c = longAt + i * Long.BYTES, stride = rows * Long.BYTES;
+                r.seed = b.getLong(c);
+                m.compares = b.getLong(c + stride);
+                m.copies = b.getLong(c + 2 * stride);
+                m.swaps = b.getLong(c + 3 * stride);
+                m.pivots = b.getLong(c + 4 * stride);
+                m.recursions = b.getLong(c + 5 * stride);
+                m.merges = b.getLong(c + 6 * stride);
+                m.insertionCalls = b.getLong(c + 7 * stride);
+                m.passes = b.getLong(c + 8 * stride);
+                m.maxDepth = b.getInt(depthAt + i * Integer.BYTES);
+                m.nanos = b.getLong(nanosAt + i * Long.BYTES);
+                v.row(r);
+            }
+        }
+
+        private ByteBuffer read(long at, int len) throws IOException {
+            ByteBuffer b = ByteBuffer.allocate(len);
+            while (b.hasRemaining()) {
+                if (ch.read(b, at + b.position()) < 0) return null;
+            }
+            return b.flip();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Appends one CSV row per measured call. {@link #record} only formats the row and
+ * queues it; a background thread drains the queue in batches into one
+ * {@link FileChannel} that stays open until {@link #close} (or JVM shutdown).
+ * A header is written to new files. A non-empty file that does not start with it (rows
+ * from before the header existed) is migrated once: the header is put in front of the
+ * old rows, which Plotter still reads, and later opens append below them.
+ */
+public final class MetricsSink implements AutoCloseable {
+
+    public static final String HEADER =
+            "label,n,compares,copies,swaps,pivots,recursions,merges,insertion_calls,passes,max_depth,time_ms";
+
+    private static final int BATCH = 1024;
+    private static final int IO_BUFFER = 1 << 16;
+    private static final String STOP = new String("stop");   // compared by identity
+
+    private static MetricsSink shared;
+
+    private final FileChannel ch;
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final Thread hook;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private MetricsSink(Path file) throws IOException {
+        addHeader(file);
+        ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        if (ch.size() == 0) queue.add(HEADER + "\n");
+        ch.position(ch.size());
+
+        writer = new Thread(this::drain, "metrics-sink");
+        writer.setDaemon(true);
+        writer.start();
+        hook = new Thread(this::closeQuietly, "metrics-sink-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    public static MetricsSink open(Path file) throws IOException {
+        return new MetricsSink(file);
+    }
+
+    // metrics.csv in the working directory, used by the classes' saveMetricsCsv; closed at JVM exit
+    public static synchronized MetricsSink shared() {
+        if (shared == null) {
+            try {
+                shared = open(Paths.get("metrics.csv"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return shared;
+    }
+
+    // labels are written unquoted, so they must not contain commas or line breaks
+    public void record(String label, int n, Metrics m) {
+        if (label.indexOf(',') >= 0 || label.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("label must not contain ',' or line breaks: " + label);
+        }
+        String row = label
+                + "," + n
+                + "," + m.compares
+                + "," + m.copies
+                + "," + m.swaps
+                + "," + m.pivots
+                + "," + m.recursions
+                + "," + m.merges
+                + "," + m.insertionCalls
+                + "," + m.passes
+                + "," + m.maxDepth
+                + "," + String.format(Locale.ROOT, "%.6f", m.millis())
+                + "\n";
+        // under the lock close() takes to queue STOP, so no row can land behind it
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("metrics sink is closed");
+            if (failure != null) throw new UncheckedIOException(failure);
+            queue.add(row);
+        }
+    }
+
+    // writes everything recorded so far and closes the file
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            queue.add(STOP);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException ignored) {
+            // already shutting down (close called from the hook itself)
+        }
+        ch.close();
+        if (failure != null) throw failure;
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            System.err.println("Cannot write metrics: " + e.getMessage());
+        }
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(BATCH);
+        ByteBuffer buf = ByteBuffer.allocate(IO_BUFFER);
+        boolean stop = false;
+        try {
+            while (true) {
+                if (!stop) batch.add(queue.take());
+                queue.drainTo(batch, BATCH - batch.size());
+                for (String row : batch) {
+                    // rows queued behind STOP are still written
+                    if (row == STOP) { stop = true; continue; }
+                    byte[] b = row.getBytes(StandardCharsets.UTF_8);
+                    if (b.length > buf.remaining()) write(buf);
+                    if (b.length > buf.capacity()) {
+                        ByteBuffer big = ByteBuffer.wrap(b);
+                        while (big.hasRemaining()) ch.write(big);
+                    } else {
+                        buf.put(b);
+                    }
+                }
+                batch.clear();
+                // a write per batch, not per row; nothing stays buffered while the queue is idle
+                if (stop || queue.isEmpty()) write(buf);
+                if (stop && queue.isEmpty()) return;
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    // the one-time migration of a headerless file: header + old rows into a temp file,
+    // then moved over the original
+    private static void addHeader(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0 || startsWithHeader(file)) return;
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE);
+                 FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer h = ByteBuffer.wrap((HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+                while (h.hasRemaining()) out.write(h);
+                long pos = 0, size = in.size();
+                while (pos < size) pos += in.transferTo(pos, size - pos, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static boolean startsWithHeader(Path file) throws IOException {
+        byte[] h = (HEADER + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(h.length);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (b.hasRemaining() && ch.read(b, b.position()) > 0) { }
+        }
+        return !b.hasRemaining() && Arrays.equals(b.array(), h);
+    }
+}
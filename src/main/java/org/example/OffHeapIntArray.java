@@ -0,0 +1,87 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Long-indexed int array in direct memory: chunks of {@code chunkInts} ints, each a
+ * native-order direct {@link ByteBuffer} (one buffer is limited to 2 GB). The data is
+ * not scanned by the GC and is freed when the array becomes unreachable; the JVM's
+ * direct memory limit ({@code -XX:MaxDirectMemorySize}) must cover {@code 4 * length} bytes.
+ */
+public final class OffHeapIntArray implements BigIntArray {
+
+    public static final int DEFAULT_CHUNK_INTS = 1 << 28;   // 1 GB per buffer
+
+    private final IntBuffer[] chunks;
+    private final int shift;
+    private final long mask;
+    private final long length;
+
+    private OffHeapIntArray(long length, int chunkInts) {
+        if (Integer.bitCount(chunkInts) != 1) throw new IllegalArgumentException("chunkInts must be a power of two");
+        // one chunk is one ByteBuffer, so its size in bytes must fit an int
+        if (chunkInts > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("chunkInts must be at most " + Integer.MAX_VALUE / Integer.BYTES + ": " + chunkInts);
+        }
+        if (length < 0) throw new IllegalArgumentException("negative length: " + length);
+        this.length = length;
+        this.shift = Integer.numberOfTrailingZeros(chunkInts);
+        this.mask = chunkInts - 1;
+
+        int n = (int) ((length + chunkInts - 1) / chunkInts);
+        chunks = new IntBuffer[n];
+        for (int c = 0; c < n; c++) {
+            long ints = Math.min(chunkInts, length - (long) c * chunkInts);
+            chunks[c] = ByteBuffer.allocateDirect((int) ints * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    // zero-filled
+    public static OffHeapIntArray allocate(long length) {
+        return new OffHeapIntArray(length, DEFAULT_CHUNK_INTS);
+    }
+
+    public static OffHeapIntArray allocate(long length, int chunkInts) {
+        return new OffHeapIntArray(length, chunkInts);
+    }
+
+    // a copy of a (for tests and small inputs)
+    public static OffHeapIntArray of(int[] a, int chunkInts) {
+        OffHeapIntArray r = new OffHeapIntArray(a.length, chunkInts);
+        r.copyFrom(a, 0, 0, a.length);
+        return r;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int get(long i) {
+        return chunks[(int) (i >>> shift)].get((int) (i & mask));
+    }
+
+    public void set(long i, int v) {
+        chunks[(int) (i >>> shift)].put((int) (i & mask), v);
+    }
+
+    // bulk copies, one buffer operation per chunk touched
+    public void copyFrom(int[] src, int srcPos, long at, int len) {
+        while (len > 0) {
+            int off = (int) (at & mask);
+            int n = Math.min(len, (int) Math.min(Integer.MAX_VALUE, mask + 1 - off));
+            chunks[(int) (at >>> shift)].put(off, src, srcPos, n);
+            srcPos += n; at += n; len -= n;
+        }
+    }
+
+    public void copyTo(long from, int[] dst, int dstPos, int len) {
+        while (len > 0) {
+            int off = (int) (from & mask);
+            int n = Math.min(len, (int) Math.min(Integer.MAX_VALUE, mask + 1 - off));
+            chunks[(int) (from >>> shift)].get(off, dst, dstPos, n);
+            dstPos += n; from += n; len -= n;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Long-indexed long array in direct memory: chunks of {@code chunkLongs} longs, each a
+ * native-order direct {@link ByteBuffer} (one buffer is limited to 2 GB). The data is
+ * not scanned by the GC and is freed when the array becomes unreachable; the JVM's
+ * direct memory limit ({@code -XX:MaxDirectMemorySize}) must cover {@code 8 * length} bytes.
+ */
+public final class OffHeapLongArray implements BigLongArray {
+
+    public static final int DEFAULT_CHUNK_LONGS = 1 << 27;   // 1 GB per buffer
+
+    private final LongBuffer[] chunks;
+    private final int shift;
+    private final long mask;
+    private final long length;
+
+    private OffHeapLongArray(long length, int chunkLongs) {
+        if (Integer.bitCount(chunkLongs) != 1) throw new IllegalArgumentException("chunkLongs must be a power of two");
+        // one chunk is one ByteBuffer, so its size in bytes must fit an int
+        if (chunkLongs > Integer.MAX_VALUE / Long.BYTES) {
+            throw new IllegalArgumentException("chunkLongs must be at most " + Integer.MAX_VALUE / Long.BYTES + ": " + chunkLongs);
+        }
+        if (length < 0) throw new IllegalArgumentException("negative length: " + length);
+        this.length = length;
+        this.shift = Integer.numberOfTrailingZeros(chunkLongs);
+        this.mask = chunkLongs - 1;
+
+        int n = (int) ((length + chunkLongs - 1) / chunkLongs);
+        chunks = new LongBuffer[n];
+        for (int c = 0; c < n; c++) {
+            long longs = Math.min(chunkLongs, length - (long) c * chunkLongs);
+            chunks[c] = ByteBuffer.allocateDirect((int) longs * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    // zero-filled
+    public static OffHeapLongArray allocate(long length) {
+        return new OffHeapLongArray(length, DEFAULT_CHUNK_LONGS);
+    }
+
+    public static OffHeapLongArray allocate(long length, int chunkLongs) {
+        return new OffHeapLongArray(length, chunkLongs);
+    }
+
+    // a copy of a (for tests and small inputs)
+    public static OffHeapLongArray of(long[] a, int chunkLongs) {
+        OffHeapLongArray r = new OffHeapLongArray(a.length, chunkLongs);
+        r.copyFrom(a, 0, 0, a.length);
+        return r;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long get(long i) {
+        return chunks[(int) (i >>> shift)].get((int) (i & mask));
+    }
+
+    public void set(long i, long v) {
+        chunks[(int) (i >>> shift)].put((int) (i & mask), v);
+    }
+
+    // bulk copies, one buffer operation per chunk touched
+    public void copyFrom(long[] src, int srcPos, long at, int len) {
+        while (len > 0) {
+            int off = (int) (at & mask);
+            int n = Math.min(len, (int) Math.min(Integer.MAX_VALUE, mask + 1 - off));
+            chunks[(int) (at >>> shift)].put(off, src, srcPos, n);
+            srcPos += n; at += n; len -= n;
+        }
+    }
+
+    public void copyTo(long from, long[] dst, int dstPos, int len) {
+        while (len > 0) {
+            int off = (int) (from & mask);
+            int n = Math.min(len, (int) Math.min(Integer.MAX_VALUE, mask + 1 - off));
+            chunks[(int) (from >>> shift)].get(off, dst, dstPos, n);
+            dstPos += n; from += n; len -= n;
+        }
+    }
+}
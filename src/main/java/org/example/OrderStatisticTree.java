@@ -0,0 +1,262 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A multiset of ints with O(log n) expected {@link #insert}, {@link #delete} and
+ * {@link #kth}: the dynamic counterpart of {@link Select#select} for data that changes
+ * by a few keys between queries.
+ *
+ * It is a treap kept in parallel primitive arrays (node 0 is the empty tree, deleted
+ * nodes go on a free list), so an operation allocates nothing unless the arrays grow.
+ * Equal keys share one node with a count, the way {@code partition3} keeps them in one
+ * middle block: {@code kth(k)} for any {@code k} inside that block returns the key.
+ * Not thread-safe.
+ */
+public final class OrderStatisticTree {
+
+    private static final int INITIAL = 16;
+
+    private int[] key, count, size, left, right, prio;
+    private int root, nodes, free;
+    private final SplittableRandom rnd;
+
+    public OrderStatisticTree() {
+        this(new SplittableRandom());
+    }
+
+    // same seed and same operations give the same tree shape
+    public OrderStatisticTree(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private OrderStatisticTree(SplittableRandom rnd) {
+        this.rnd = rnd;
+        alloc(INITIAL);
+    }
+
+    // all keys of a, built in O(n log n) for the sort plus O(n) for the tree
+    public static OrderStatisticTree of(int[] a) {
+        if (a == null) throw new IllegalArgumentException("Invalid input");
+        OrderStatisticTree t = new OrderStatisticTree();
+        int[] s = a.clone();
+        Arrays.sort(s);
+        int distinct = 0;
+        for (int i = 0; i < s.length; i++) if (i == 0 || s[i] != s[i - 1]) distinct++;
+        t.alloc(Math.max(INITIAL, distinct + 1));
+        for (int i = 0; i < s.length; ) {
+            int j = i;
+            while (j < s.length && s[j] == s[i]) j++;
+            int x = ++t.nodes;
+            t.key[x] = s[i];
+            t.count[x] = j - i;
+            i = j;
+        }
+        int[] depth = new int[distinct + 1];
+        t.root = t.build(1, distinct + 1, 0, depth);
+        t.heapPriorities(depth);
+        return t;
+    }
+
+    /** Number of keys, duplicates included. */
+    public int size() {
+        return size[root];
+    }
+
+    public boolean isEmpty() {
+        return root == 0;
+    }
+
+    public void insert(int x) {
+        if (size[root] == Integer.MAX_VALUE) throw new IllegalStateException("tree is full");
+        root = insert(root, x);
+    }
+
+    /** Removes one copy of x; false if x is not present. */
+    public boolean delete(int x) {
+        if (count(x) == 0) return false;
+        root = delete(root, x);
+        return true;
+    }
+
+    /** The k-th smallest key (0-based), as {@code Select.select} on the same keys. */
+    public int kth(int k) {
+        if (k < 0 || k >= size[root]) throw new IllegalArgumentException("Invalid input");
+        int t = root;
+        while (true) {
+            int ls = size[left[t]];
+            if (k < ls) {
+                t = left[t];
+            } else if (k < ls + count[t]) {
+                return key[t];
+            } else {
+                k -= ls + count[t];
+                t = right[t];
+            }
+        }
+    }
+
+    /** Number of keys strictly smaller than x. */
+    public int rank(int x) {
+        int r = 0, t = root;
+        while (t != 0) {
+            if (x <= key[t]) {
+                t = left[t];
+            } else {
+                r += size[left[t]] + count[t];
+                t = right[t];
+            }
+        }
+        return r;
+    }
+
+    /** Copies of x in the tree. */
+    public int count(int x) {
+        int t = root;
+        while (t != 0 && key[t] != x) t = x < key[t] ? left[t] : right[t];
+        return count[t];
+    }
+
+    // ---------- treap ----------
+
+    // the child is read into a local first: newNode may replace the arrays, and
+    // left[t] = insert(...) would store into the old one
+    private int insert(int t, int x) {
+        if (t == 0) return newNode(x);
+        if (x == key[t]) {
+            count[t]++;
+        } else if (x < key[t]) {
+            int c = insert(left[t], x);
+            left[t] = c;
+            if (prio[c] > prio[t]) t = rotateRight(t);
+        } else {
+            int c = insert(right[t], x);
+            right[t] = c;
+            if (prio[c] > prio[t]) t = rotateLeft(t);
+        }
+        pull(t);
+        return t;
+    }
+
+    // x is known to be present
+    private int delete(int t, int x) {
+        if (x == key[t]) {
+            if (--count[t] > 0) {
+                size[t]--;
+                return t;
+            }
+            int m = join(left[t], right[t]);
+            release(t);
+            return m;
+        }
+        if (x < key[t]) left[t] = delete(left[t], x);
+        else right[t] = delete(right[t], x);
+        pull(t);
+        return t;
+    }
+
+    // every key of a is smaller than every key of b
+    private int join(int a, int b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        if (prio[a] > prio[b]) {
+            right[a] = join(right[a], b);
+            pull(a);
+            return a;
+        }
+        left[b] = join(a, left[b]);
+        pull(b);
+        return b;
+    }
+
+    private int rotateRight(int t) {
+        int l = left[t];
+        left[t] = right[l];
+        right[l] = t;
+        pull(t);
+        return l;
+    }
+
+    private int rotateLeft(int t) {
+        int r = right[t];
+        right[t] = left[r];
+        left[r] = t;
+        pull(t);
+        return r;
+    }
+
+    private void pull(int t) {
+        size[t] = size[left[t]] + count[t] + size[right[t]];
+    }
+
+    private int newNode(int x) {
+        int t;
+        if (free != 0) {
+            t = free;
+            free = right[t];
+        } else {
+            if (nodes + 1 == key.length) alloc(key.length * 2);
+            t = ++nodes;
+        }
+        key[t] = x;
+        count[t] = 1;
+        size[t] = 1;
+        left[t] = 0;
+        right[t] = 0;
+        prio[t] = rnd.nextInt();
+        return t;
+    }
+
+    // freed nodes are chained through right[]
+    private void release(int t) {
+        right[t] = free;
+        free = t;
+    }
+
+    private void alloc(int capacity) {
+        if (key != null && capacity <= key.length) return;
+        if (key == null) {
+            key = new int[capacity];
+            count = new int[capacity];
+            size = new int[capacity];
+            left = new int[capacity];
+            right = new int[capacity];
+            prio = new int[capacity];
+            return;
+        }
+        key = Arrays.copyOf(key, capacity);
+        count = Arrays.copyOf(count, capacity);
+        size = Arrays.copyOf(size, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        prio = Arrays.copyOf(prio, capacity);
+    }
+
+    // ---------- bulk build ----------
+
+    // nodes [lo, hi) are sorted by key: the middle one becomes the root of a balanced subtree
+    private int build(int lo, int hi, int d, int[] depth) {
+        if (lo >= hi) return 0;
+        int mid = (lo + hi) >>> 1;
+        depth[mid] = d;
+        left[mid] = build(lo, mid, d + 1, depth);
+        right[mid] = build(mid + 1, hi, d + 1, depth);
+        pull(mid);
+        return mid;
+    }
+
+    // random priorities handed out in level order, largest first, so every parent outranks
+    // its children: the balanced shape is a valid treap and later inserts rotate as usual
+    private void heapPriorities(int[] depth) {
+        int n = nodes;
+        if (n == 0) return;
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) p[i] = rnd.nextInt();
+        Arrays.sort(p);
+        int[] start = new int[34];   // nodes shallower than each depth (a balanced tree is < 32 deep)
+        for (int t = 1; t <= n; t++) start[depth[t] + 2]++;
+        for (int d = 2; d < start.length; d++) start[d] += start[d - 1];
+        for (int t = 1; t <= n; t++) prio[t] = p[n - 1 - start[depth[t] + 1]++];
+    }
+}
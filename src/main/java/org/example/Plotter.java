@@ -6,44 +6,65 @@ import java.awt.image.BufferedImage;
 import java.io.PrintWriter;
 import java.nio.file.*;
 import java.util.*;
-import java.util.List;
+import java.util.function.Consumer;
 
 public final class Plotter {
 
     static final class Row {
         String label, algo;
         int n;
-        Double timeMs;
-        Integer maxDepth;
+        double timeMs = Double.NaN;   // NaN / -1: column missing in this row
+        int maxDepth = -1;
     }
 
+    // usage: Plotter [metrics.csv | metrics.bin] [algo ...]
     public static void main(String[] args) throws Exception {
         Path csv = Paths.get(args.length > 0 ? args[0] : "metrics.csv");
         if (!Files.exists(csv)) {
             System.err.println("metrics.csv not found at: " + csv.toAbsolutePath());
             return;
         }
+        Set<String> only = args.length > 1 ? new HashSet<>(Arrays.asList(args).subList(1, args.length)) : null;
 
-        List<Row> rows = parse(csv);
         Path outDir = Paths.get("results");
         Files.createDirectories(outDir);
 
-        // агрегируем: среднее по одинаковым n
-        var timeSeries  = aggregate(rows, r -> r.timeMs);
-        var depthSeries = aggregate(rows, r -> r.maxDepth == null ? null : r.maxDepth.doubleValue());
-
-        // рисуем графики
-        plot(timeSeries,  "time (ms)",  outDir.resolve("time_ms.png"));
-        plot(depthSeries, "max depth",  outDir.resolve("depth.png"));
-
-        // чистый CSV
+        // агрегируем на лету: по (algo, n) одна пара Stats (время, глубина), строки не хранятся
+        Map<String, TreeMap<Integer, Stats[]>> acc = new LinkedHashMap<>();
+        Consumer<Row> sink = r -> {
+            if (only != null && !only.contains(r.algo)) return;
+            if ("unknown".equals(r.algo)) return;
+            Stats[] st = acc.computeIfAbsent(r.algo, k -> new TreeMap<>())
+                    .computeIfAbsent(r.n, k -> new Stats[]{new Stats(), new Stats()});
+            if (!Double.isNaN(r.timeMs)) st[0].add(r.timeMs);
+            if (r.maxDepth >= 0) st[1].add(r.maxDepth);
+        };
+        if (MetricsFile.isMetricsFile(csv)) readBinary(csv, only, sink);
+        else parse(csv, sink);
+
+        // рисуем графики: линия p50, полоса до p99
+        plot(acc, 0, "time (ms)", outDir.resolve("time_ms.png"));
+        plot(acc, 1, "max depth", outDir.resolve("depth.png"));
+
+        // чистый CSV: одна строка на (algo, n)
         try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(outDir.resolve("metrics_clean.csv")))) {
-            pw.println("label,algo,n,time_ms,max_depth");
-            for (Row r : rows) {
-                pw.printf(Locale.US, "%s,%s,%d,%s,%s%n",
-                        r.label, r.algo, r.n,
-                        r.timeMs == null ? "" : String.format(Locale.US, "%.6f", r.timeMs),
-                        r.maxDepth == null ? "" : r.maxDepth.toString());
+            pw.println("algo,n,runs,time_mean_ms,time_stddev_ms,time_min_ms,time_p50_ms,time_p95_ms,time_p99_ms,time_max_ms,depth_p50,depth_max");
+            StringBuilder line = new StringBuilder();
+            for (var e : acc.entrySet()) {
+                for (var e2 : e.getValue().entrySet()) {
+                    Stats t = e2.getValue()[0], d = e2.getValue()[1];
+                    line.setLength(0);
+                    line.append(e.getKey()).append(',').append(e2.getKey()).append(',').append(Math.max(t.count(), d.count()));
+                    for (double v : new double[]{t.mean(), t.stddev(), t.min(), t.quantile(0.50), t.quantile(0.95), t.quantile(0.99), t.max()}) {
+                        line.append(',');
+                        if (t.count() > 0) appendFixed6(line, v);
+                    }
+                    line.append(',');
+                    if (d.count() > 0) line.append(Math.round(d.quantile(0.50)));
+                    line.append(',');
+                    if (d.count() > 0) line.append(Math.round(d.max()));
+                    pw.println(line);
+                }
             }
         }
 
@@ -52,54 +73,94 @@ public final class Plotter {
 
     // ---------- parsing ----------
 
-    private static List<Row> parse(Path path) throws Exception {
-        List<Row> out = new ArrayList<>();
-        for (String line : Files.readAllLines(path)) {
-            if (line == null) continue;
-            line = line.trim();
-            if (line.isEmpty()) continue;
-
-            String[] parts = line.split(",");
-            if (parts.length < 2) continue;
-
-            Row r = new Row();
-            r.label = parts[0].trim();
-            r.algo = inferAlgo(r.label);
-
-            Map<String, String> kv = new HashMap<>();
-            for (int i = 1; i < parts.length; i++) {
-                String[] p = parts[i].split(":", 2);
-                if (p.length == 2) {
-                    kv.put(p[0].trim().toLowerCase(Locale.ROOT),
-                            p[1].trim());
+    // typed columns, block by block; with an index only the blocks of the requested algos are mapped
+    private static void readBinary(Path path, Set<String> only, Consumer<Row> sink) throws Exception {
+        Row r = new Row();
+        MetricsFile.read(path, only, b -> {
+            r.algo = b.algo;
+            r.n = b.n;
+            r.timeMs = b.m.millis();
+            r.maxDepth = b.m.maxDepth;
+            sink.accept(r);
+        });
+    }
+
+    private static void parse(Path path, Consumer<Row> sink) throws Exception {
+        String[] header = null;   // columns of the last CSV header seen (MetricsSink)
+        try (var lines = Files.newBufferedReader(path)) {
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                String[] parts = line.split(",");
+                if (parts.length < 2) continue;
+                if (parts[0].trim().equals("label")) {
+                    header = parts;
+                    continue;
                 }
-            }
 
-            // n / array size
-            String nStr = firstNonNull(kv.get("n"), kv.get("array size"));
-            if (nStr == null) continue;
-            r.n = parseIntSafe(nStr);
+                Row r = new Row();
+                r.label = parts[0].trim();
+                r.algo = inferAlgo(r.label);
+
+                Map<String, String> kv = new HashMap<>();
+                if (header != null && line.indexOf(':') < 0) {
+                    for (int i = 1; i < parts.length && i < header.length; i++) {
+                        kv.put(header[i].trim().toLowerCase(Locale.ROOT), parts[i].trim());
+                    }
+                } else {
+                    // older "label, key: value, ..." rows
+                    for (int i = 1; i < parts.length; i++) {
+                        String[] p = parts[i].split(":", 2);
+                        if (p.length == 2) {
+                            kv.put(p[0].trim().toLowerCase(Locale.ROOT),
+                                    p[1].trim());
+                        }
+                    }
+                }
 
-            // time
-            String tStr = firstNonNull(kv.get("time ms"), kv.get("time in ms"), kv.get("time_ms"));
-            if (tStr != null) r.timeMs = parseDoubleSafe(tStr);
+                // n / array size
+                String nStr = firstNonNull(kv.get("n"), kv.get("array size"));
+                if (nStr == null) continue;
+                r.n = parseIntSafe(nStr);
 
-            // depth
-            String dStr = firstNonNull(kv.get("max depth"), kv.get("max_depth"));
-            if (dStr != null) r.maxDepth = parseIntSafe(dStr);
+                // time
+                String tStr = firstNonNull(kv.get("time ms"), kv.get("time in ms"), kv.get("time_ms"));
+                if (tStr != null) r.timeMs = parseDoubleSafe(tStr);
 
-            out.add(r);
+                // depth
+                String dStr = firstNonNull(kv.get("max depth"), kv.get("max_depth"));
+                if (dStr != null) r.maxDepth = parseIntSafe(dStr);
+
+                sink.accept(r);
+            }
         }
-        return out;
     }
 
     private static String inferAlgo(String label) {
         String s = label.toLowerCase(Locale.ROOT);
-        if (s.startsWith("ms_")) return "mergesort";
-        if (s.startsWith("qs_")) return "quicksort";
-        if (s.startsWith("select_")) return "select";
-        if (s.startsWith("closest_")) return "closest";
-        return "unknown";
+        // "<engine>_<dist>_<n>_...", where dist is "rand" for uniform input
+        String[] parts = s.split("_", 3);
+        if (parts.length < 2) return "unknown";
+        String algo = switch (parts[0]) {
+            case "ms" -> "mergesort";
+            case "qs" -> "quicksort";
+            default   -> parts[0];
+        };
+        String dist = parts[1];
+        boolean other = !dist.equals("rand")
+                && (Generators.dists().contains(dist) || Generators.pointDists().contains(dist));
+        return other ? algo + "/" + dist : algo;
+    }
+
+    // same text as "%.6f" (for |x| < 9.2e12), without the Formatter cost per row
+    private static void appendFixed6(StringBuilder sb, double x) {
+        long u = Math.round(Math.abs(x) * 1e6);
+        if (x < 0 && u != 0) sb.append('-');
+        sb.append(u / 1_000_000).append('.');
+        String frac = Long.toString(u % 1_000_000);
+        for (int i = frac.length(); i < 6; i++) sb.append('0');
+        sb.append(frac);
     }
 
     private static int parseIntSafe(String s) {
@@ -116,39 +177,21 @@ public final class Plotter {
         return null;
     }
 
-    // ---------- aggregation ----------
-
-    private static Map<String, TreeMap<Integer, Double>> aggregate(
-            List<Row> rows, java.util.function.Function<Row, Double> get) {
-
-        Map<String, Map<Integer, List<Double>>> tmp = new LinkedHashMap<>();
-        for (Row r : rows) {
-            if ("unknown".equals(r.algo)) continue;
-            Double v = get.apply(r);
-            if (v == null) continue;
-            tmp.computeIfAbsent(r.algo, k -> new HashMap<>())
-                    .computeIfAbsent(r.n, k -> new ArrayList<>())
-                    .add(v);
-        }
+    // ---------- plotting (pure AWT) ----------
 
-        Map<String, TreeMap<Integer, Double>> res = new LinkedHashMap<>();
-        for (var e : tmp.entrySet()) {
-            TreeMap<Integer, Double> m = new TreeMap<>();
+    // one line per algo through the p50 values, with a translucent band up to p99
+    private static void plot(Map<String, TreeMap<Integer, Stats[]>> acc, int which,
+                             String yLabel, Path outPng) throws Exception {
+        Map<String, TreeMap<Integer, double[]>> series = new LinkedHashMap<>();
+        for (var e : acc.entrySet()) {
+            TreeMap<Integer, double[]> m = new TreeMap<>();
             for (var e2 : e.getValue().entrySet()) {
-                List<Double> lst = e2.getValue();
-                double sum = 0;
-                for (double x : lst) sum += x;
-                m.put(e2.getKey(), sum / lst.size()); // среднее по runs
+                Stats st = e2.getValue()[which];
+                if (st.count() > 0) m.put(e2.getKey(), new double[]{st.quantile(0.50), st.quantile(0.99)});
             }
-            res.put(e.getKey(), m);
+            if (!m.isEmpty()) series.put(e.getKey(), m);
         }
-        return res;
-    }
 
-    // ---------- plotting (pure AWT) ----------
-
-    private static void plot(Map<String, TreeMap<Integer, Double>> series,
-                             String yLabel, Path outPng) throws Exception {
         int W = 900, H = 520, L = 70, R = 20, T = 20, B = 60;
         BufferedImage img = new BufferedImage(W, H, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g = img.createGraphics();
@@ -164,12 +207,11 @@ public final class Plotter {
         int minN = Integer.MAX_VALUE, maxN = Integer.MIN_VALUE;
         double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
         for (var m : series.values()) {
-            if (m.isEmpty()) continue;
             minN = Math.min(minN, m.firstKey());
             maxN = Math.max(maxN, m.lastKey());
-            for (double v : m.values()) {
-                minY = Math.min(minY, v);
-                maxY = Math.max(maxY, v);
+            for (double[] v : m.values()) {
+                minY = Math.min(minY, v[0]);
+                maxY = Math.max(maxY, v[1]);
             }
         }
         if (minN == Integer.MAX_VALUE) {
@@ -178,13 +220,14 @@ public final class Plotter {
             return;
         }
         if (minY == maxY) { minY -= 1; maxY += 1; }
+        double spanN = Math.max(1, maxN - minN);
 
         // axes
         g.setColor(Color.BLACK);
         g.drawLine(x0, y0, x1, y0);
         g.drawLine(x0, y0, x0, y1);
         g.drawString("n", (x0 + x1) / 2, H - 25);
-        g.drawString(yLabel, 8, (y0 + y1) / 2);
+        g.drawString(yLabel + ", p50 (band: p99)", 8, (y0 + y1) / 2);
 
         // ticks
         int ticks = 5;
@@ -210,17 +253,27 @@ public final class Plotter {
 
         for (var e : series.entrySet()) {
             Color c = colors[ci++ % colors.length];
-            g.setColor(c);
-
-            int prevX = -1, prevY = -1;
+            int k = e.getValue().size();
+            int[] xs = new int[k], ys = new int[k], hs = new int[k];
+            int i = 0;
             for (var p : e.getValue().entrySet()) {
-                int n = p.getKey();
-                double val = p.getValue();
-                int x = x0 + (int) Math.round((x1 - x0) * ((n - minN) / (double) (maxN - minN)));
-                int y = y0 - (int) Math.round((y0 - y1) * ((val - minY) / (maxY - minY)));
-                if (prevX != -1) g.drawLine(prevX, prevY, x, y);
-                g.fillOval(x - 3, y - 3, 6, 6);
-                prevX = x; prevY = y;
+                xs[i] = x0 + (int) Math.round((x1 - x0) * ((p.getKey() - minN) / spanN));
+                ys[i] = y0 - (int) Math.round((y0 - y1) * ((p.getValue()[0] - minY) / (maxY - minY)));
+                hs[i] = y0 - (int) Math.round((y0 - y1) * ((p.getValue()[1] - minY) / (maxY - minY)));
+                i++;
+            }
+
+            // p50..p99 band
+            Polygon band = new Polygon();
+            for (int j = 0; j < k; j++) band.addPoint(xs[j], hs[j]);
+            for (int j = k - 1; j >= 0; j--) band.addPoint(xs[j], ys[j]);
+            g.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), 50));
+            g.fillPolygon(band);
+
+            g.setColor(c);
+            for (int j = 0; j < k; j++) {
+                if (j > 0) g.drawLine(xs[j - 1], ys[j - 1], xs[j], ys[j]);
+                g.fillOval(xs[j] - 3, ys[j] - 3, 6, 6);
             }
             // legend item
             g.fillRect(legendX, legendY - 8, 12, 4);
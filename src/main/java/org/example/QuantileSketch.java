@@ -0,0 +1,286 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate quantiles of an unbounded int stream in O(k) memory (a KLL sketch,
+ * Karnin, Lang and Liberty 2016). {@link #select(long)} answers like {@link Select#select}
+ * on everything seen so far, up to a rank error of about {@link #epsilon()} · n.
+ *
+ * Level h holds items of weight 2^h. When the sketch is over capacity the lowest full level
+ * is sorted and every other item (odd or even positions, chosen at random) moves up one
+ * level; upper levels may hold k items and each lower one 2/3 of the one above, so the
+ * total stays below ~3k. Per-thread sketches with the same k are combined with {@link #merge}.
+ *
+ * {@link #validating(int)} also keeps every item, so {@link #validate} can check the
+ * answers against exact {@code Select.select}; that copy is O(n) and meant for tests and
+ * tuning only. Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+    // levels never get narrower than this
+    private static final int MIN_WIDTH = 8;
+
+    /** Per-query result of {@link #validate}: rank error is |target rank - true rank of approx| / n. */
+    public record Validation(long[] ranks, int[] approx, int[] exact, double maxRankError, double epsilon) {
+        public boolean withinBound() {
+            return maxRankError <= epsilon;
+        }
+    }
+
+    private final int k;
+    private final SplittableRandom rnd;
+    private int[][] levels = new int[1][];
+    private int[] sizes = new int[1];
+    private int[] capacity = {0};   // per level, recomputed when a level is added
+    private long n;
+    private int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
+    // sorted view for queries, rebuilt after the next update or merge
+    private int[] sortedItems;
+    private long[] cumWeight;
+
+    // every item, only in validating mode
+    private final boolean validating;
+    private int[] raw;
+    private int rawSize;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        this(k, new SplittableRandom(), false);
+    }
+
+    // same seed and same input give the same answers
+    public QuantileSketch(int k, long seed) {
+        this(k, new SplittableRandom(seed), false);
+    }
+
+    private QuantileSketch(int k, SplittableRandom rnd, boolean validating) {
+        if (k < MIN_WIDTH) throw new IllegalArgumentException("k must be at least " + MIN_WIDTH);
+        this.k = k;
+        this.rnd = rnd;
+        this.validating = validating;
+        this.capacity[0] = k;
+        if (validating) raw = new int[16];
+    }
+
+    /** The smallest k whose {@link #epsilon(int)} is at most eps. */
+    public static QuantileSketch withError(double eps) {
+        if (!(eps > 0 && eps < 1)) throw new IllegalArgumentException("eps must be in (0, 1)");
+        return new QuantileSketch(Math.max(MIN_WIDTH, (int) Math.ceil(Math.pow(2.446 / eps, 1 / 0.9433))));
+    }
+
+    /** A sketch that also stores its input, for {@link #validate}. */
+    public static QuantileSketch validating(int k) {
+        return new QuantileSketch(k, new SplittableRandom(), true);
+    }
+
+    // same seed and same input give the same answers and the same validation result
+    public static QuantileSketch validating(int k, long seed) {
+        return new QuantileSketch(k, new SplittableRandom(seed), true);
+    }
+
+    /**
+     * Normalized rank error that holds for ~99% of queries with this k
+     * (the empirical fit DataSketches publishes for KLL: 2.446 / k^0.9433; k = 200 gives ~1.65%).
+     */
+    public static double epsilon(int k) {
+        return 2.446 / Math.pow(k, 0.9433);
+    }
+
+    public double epsilon() {
+        return epsilon(k);
+    }
+
+    public int k() {
+        return k;
+    }
+
+    /** Items seen, including those merged in. */
+    public long count() {
+        return n;
+    }
+
+    /** Items currently kept. */
+    public int retained() {
+        int r = 0;
+        for (int h = 0; h < sizes.length; h++) r += sizes[h];
+        return r;
+    }
+
+    public void update(int x) {
+        n++;
+        if (x < min) min = x;
+        if (x > max) max = x;
+        if (validating) {
+            if (rawSize == raw.length) raw = Arrays.copyOf(raw, raw.length * 2);
+            raw[rawSize++] = x;
+        }
+        append(0, x);
+        if (sizes[0] >= capacity[0]) compress();
+        sortedItems = null;
+    }
+
+    /**
+     * Adds everything other has seen; other is not changed. Both must have the same k:
+     * items compacted with a smaller k carry a larger error that {@link #epsilon()} would not report.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("cannot merge sketches with k = " + k + " and k = " + other.k);
+        }
+        if (other.validating != validating) {
+            throw new IllegalArgumentException("cannot merge a validating and a plain sketch");
+        }
+        if (other == this) throw new IllegalArgumentException("cannot merge a sketch into itself");
+        if (other.n == 0) return;
+        n += other.n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (validating) {
+            if (rawSize + other.rawSize > raw.length) raw = Arrays.copyOf(raw, Math.max(raw.length * 2, rawSize + other.rawSize));
+            System.arraycopy(other.raw, 0, raw, rawSize, other.rawSize);
+            rawSize += other.rawSize;
+        }
+        for (int h = 0; h < other.sizes.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) append(h, other.levels[h][i]);
+        }
+        compress();
+        sortedItems = null;
+    }
+
+    /** Approximately the k-th smallest item seen (0-based); k = 0 and k = n - 1 are exact. */
+    public int select(long k) {
+        if (k < 0 || k >= n) throw new IllegalArgumentException("Invalid input");
+        if (k == 0) return min;
+        if (k == n - 1) return max;
+        view();
+        // first item whose cumulative weight passes k
+        int lo = 0, hi = sortedItems.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumWeight[mid] > k) hi = mid;
+            else lo = mid + 1;
+        }
+        return sortedItems[lo];
+    }
+
+    /** select(floor(q · (n - 1))) for q in [0, 1]. */
+    public int quantile(double q) {
+        if (!(q >= 0 && q <= 1)) throw new IllegalArgumentException("Invalid input");
+        return select(targetRank(q));
+    }
+
+    /** Approximate number of items smaller than x. */
+    public long rank(int x) {
+        if (n == 0) return 0;
+        view();
+        int i = Arrays.binarySearch(sortedItems, x);
+        if (i < 0) i = -i - 1;
+        else while (i > 0 && sortedItems[i - 1] == x) i--;
+        return i == 0 ? 0 : cumWeight[i - 1];
+    }
+
+    /**
+     * Checks the answers for the given quantiles against {@code Select.select} on a copy
+     * of the whole input. Only for sketches made by {@link #validating(int)}.
+     */
+    public Validation validate(double... qs) {
+        if (!validating) throw new IllegalStateException("not a validating sketch");
+        if (n == 0) throw new IllegalStateException("sketch is empty");
+        long[] ranks = new long[qs.length];
+        int[] approx = new int[qs.length], exact = new int[qs.length];
+        double worst = 0;
+        int[] copy = new int[rawSize];
+        for (int i = 0; i < qs.length; i++) {
+            long r = targetRank(qs[i]);
+            ranks[i] = r;
+            approx[i] = quantile(qs[i]);
+            System.arraycopy(raw, 0, copy, 0, rawSize);
+            exact[i] = Select.select(copy, (int) r, null);
+            // approx covers true ranks [below, below + equal); distance from r to that range
+            long below = 0, equal = 0;
+            for (int j = 0; j < rawSize; j++) {
+                if (raw[j] < approx[i]) below++;
+                else if (raw[j] == approx[i]) equal++;
+            }
+            long err = r < below ? below - r : r >= below + equal ? r - (below + equal - 1) : 0;
+            worst = Math.max(worst, (double) err / n);
+        }
+        return new Validation(ranks, approx, exact, worst, epsilon());
+    }
+
+    // ---------- levels ----------
+
+    private long targetRank(double q) {
+        return (long) Math.floor(q * (n - 1));
+    }
+
+    // k at the top level, shrinking by 2/3 per level down
+    private void capacities() {
+        capacity = new int[levels.length];
+        for (int h = 0; h < levels.length; h++) {
+            int depth = levels.length - 1 - h;
+            capacity[h] = Math.max(MIN_WIDTH, (int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)));
+        }
+    }
+
+    private void append(int h, int x) {
+        if (h >= levels.length) {
+            levels = Arrays.copyOf(levels, h + 1);
+            sizes = Arrays.copyOf(sizes, h + 1);
+            capacities();
+        }
+        int[] lv = levels[h];
+        if (lv == null) lv = levels[h] = new int[capacity[h]];
+        else if (sizes[h] == lv.length) lv = levels[h] = Arrays.copyOf(lv, lv.length * 2);
+        lv[sizes[h]++] = x;
+    }
+
+    // compacts full levels from the bottom until every level fits its capacity
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] < capacity[h]) continue;
+            int[] lv = levels[h];
+            int s = sizes[h];
+            // with an odd count one item stays behind at weight 2^h
+            int keep = s & 1;
+            Arrays.sort(lv, keep, s);
+            int off = keep + (rnd.nextBoolean() ? 1 : 0);
+            sizes[h] = keep;
+            for (int i = off; i < s; i += 2) append(h + 1, lv[i]);
+        }
+    }
+
+    private void view() {
+        if (sortedItems != null) return;
+        int total = retained();
+        int[] items = new int[total];
+        long[] weights = new long[total];
+        int p = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                items[p] = levels[h][i];
+                weights[p++] = 1L << h;
+            }
+        }
+        // sort (item, weight) pairs by item: packed into one long, item in the high half
+        long[] packed = new long[total];
+        for (int i = 0; i < total; i++) packed[i] = ((long) items[i] << 32) | i;
+        Arrays.sort(packed);
+        sortedItems = new int[total];
+        cumWeight = new long[total];
+        long c = 0;
+        for (int i = 0; i < total; i++) {
+            int idx = (int) packed[i];
+            sortedItems[i] = items[idx];
+            c += weights[idx];
+            cumWeight[i] = c;
+        }
+    }
+}
@@ -1,12 +1,32 @@
 package org.example;;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
 
 public final class QuickSort {
 
+    // ranges up to this size are sorted by the sequential loop
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+    // ranges up to this size are finished by insertion sort
+    private static final int CUTOFF = 24;
+
+    public enum Partition {
+        LOMUTO,      // single random pivot, <= goes left
+        THREE_WAY,   // Dutch flag (<, ==, >): equal keys are done after one pass
+        DUAL_PIVOT,  // Yaroslavskiy, two random pivots p <= q
+        VECTOR,      // LOMUTO's split done with Vector API kernels and an n-int scratch buffer;
+                     // plain LOMUTO when Simd.enabled() is false
+        BLOCK        // BlockQuicksort: ninther / median-of-3 pivot, branchless block scan (BlockPartition)
+    }
+
+    // sort(a) and sort(a, m) use this strategy; -Dquicksort.partition=block switches a whole JVM
+    public static final Partition DEFAULT_PARTITION = defaultPartition();
+
     public static long compares = 0;
     public static long swaps    = 0;
     public static long pivots   = 0;
@@ -22,72 +42,359 @@ public final class QuickSort {
 
 
     public static void saveMetricsCsv(String label, int n) {
-        double ms = lastNanos / 1_000_000.0;
-        try (java.io.PrintWriter out = new java.io.PrintWriter(new java.io.FileWriter("metrics.csv", true))) {
-            out.println(
-                    label
-                            + ", array size: " + n
-                            + ", compares: " + compares
-                            + ", swaps: " + swaps
-                            + ", pivots: " + pivots
-                            + ", recursions: " + recursions
-                            + ", max depth: " + maxDepth
-                            + ", time in ms: " + ms
-            );
-        } catch (java.io.IOException e) { e.printStackTrace(); }
+        Metrics m = new Metrics();
+        m.compares = compares;
+        m.swaps = swaps;
+        m.pivots = pivots;
+        m.recursions = recursions;
+        m.maxDepth = maxDepth;
+        m.nanos = lastNanos;
+        MetricsSink.shared().record(label, n, m);
     }
 
 
 
     public static void sort(int[] a) {
-        resetMetrics();
+        Metrics m = new Metrics();
+        sort(a, DEFAULT_PARTITION, m);
+        publish(m);
+    }
+
+    // m == null: no counting at all
+    public static void sort(int[] a, Metrics m) {
+        sort(a, DEFAULT_PARTITION, m);
+    }
+
+    public static void sort(int[] a, Partition strategy, Metrics m) {
         long t0 = System.nanoTime();
-        if (a != null && a.length > 1) quick(a, 0, a.length - 1, 1);
-        lastNanos = System.nanoTime() - t0;
+        if (a != null && a.length > 1) quick(a, 0, a.length - 1, 1, strategy, scratch(a, strategy), m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
     }
 
 
-    private static void quick(int[] a, int lo, int hi, int depth) {
+    public static void parallelSort(int[] a) {
+        parallelSort(a, PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
 
-        if (depth > maxDepth) maxDepth = depth;
+    public static void parallelSort(int[] a, int threshold) {
+        parallelSort(a, threshold, ForkJoinPool.commonPool());
+    }
 
-        while (lo < hi) {
+    public static void parallelSort(int[] a, int threshold, ForkJoinPool pool) {
+        Metrics m = new Metrics();
+        parallelSort(a, threshold, pool, Partition.LOMUTO, m);
+        publish(m);
+    }
 
-            int pivotIndex = ThreadLocalRandom.current().nextInt(lo, hi + 1);
-            pivots++;
-            swap(a, pivotIndex, hi);
-            int pivot = a[hi];
+    public static void parallelSort(int[] a, int threshold, ForkJoinPool pool, Metrics m) {
+        parallelSort(a, threshold, pool, Partition.LOMUTO, m);
+    }
 
-            int i = lo;
-            int j = lo;
-            while (j < hi) {
-                compares++;
-                if (a[j] <= pivot) {
-                    swap(a, i, j);
-                    i++;
-                }
-                j++;
+    public static void parallelSort(int[] a, int threshold, ForkJoinPool pool, Partition strategy, Metrics m) {
+        long t0 = System.nanoTime();
+        if (a != null && a.length > 1) {
+            pool.invoke(new QuickTask(a, 0, a.length - 1, Math.max(threshold, CUTOFF + 1), 1, strategy, scratch(a, strategy), m));
+        }
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    // the static fields keep the result of the last no-Metrics call
+    private static void publish(Metrics m) {
+        compares = m.compares;
+        swaps = m.swaps;
+        pivots = m.pivots;
+        recursions = m.recursions;
+        maxDepth = m.maxDepth;
+        lastNanos = m.nanos;
+    }
+
+
+    // VECTOR partitions through buf[lo, hi], so disjoint ranges can share one buffer;
+    // BLOCK needs two offset blocks per thread (see QuickTask.fork)
+    private static int[] scratch(int[] a, Partition strategy) {
+        if (strategy == Partition.BLOCK) return new int[2 * BlockPartition.BLOCK];
+        return strategy == Partition.VECTOR && Simd.enabled() ? new int[a.length] : null;
+    }
+
+    // partition() leaves [lo, lt) below the pivot(s) and (gt, hi] above them;
+    // only DUAL_PIVOT leaves an unsorted middle (lt, gt), and only when p < q.
+    // The largest part is looped on, the others recursed into, so depth stays O(log n).
+    private static void quick(int[] a, int lo, int hi, int depth, Partition strategy, int[] buf, Metrics m) {
+
+        if (m != null) m.depth(depth);
+
+        while (hi - lo + 1 > CUTOFF) {
+
+            long b = partition(a, lo, hi, strategy, buf, m);
+            int lt = (int) (b >>> 32), gt = (int) b;
+            boolean mid = strategy == Partition.DUAL_PIVOT && a[lt] != a[gt];
+
+            int leftSize  = lt - lo;
+            int rightSize = hi - gt;
+            int midSize   = mid ? gt - lt - 1 : 0;
+
+            if (leftSize >= rightSize && leftSize >= midSize) {
+                if (mid) sub(a, lt + 1, gt - 1, depth + 1, strategy, buf, m);
+                sub(a, gt + 1, hi, depth + 1, strategy, buf, m);
+                hi = lt - 1;
+            } else if (rightSize >= midSize) {
+                sub(a, lo, lt - 1, depth + 1, strategy, buf, m);
+                if (mid) sub(a, lt + 1, gt - 1, depth + 1, strategy, buf, m);
+                lo = gt + 1;
+            } else {
+                sub(a, lo, lt - 1, depth + 1, strategy, buf, m);
+                sub(a, gt + 1, hi, depth + 1, strategy, buf, m);
+                lo = lt + 1;
+                hi = gt - 1;
+            }
+        }
+        if (lo < hi) insertion(a, lo, hi, m);
+    }
+
+    private static void sub(int[] a, int lo, int hi, int depth, Partition strategy, int[] buf, Metrics m) {
+        if (lo >= hi) return;
+        if (m != null) m.recursions++;
+        quick(a, lo, hi, depth, strategy, buf, m);
+    }
+
+    // returns (lt << 32 | gt), see quick()
+    private static long partition(int[] a, int lo, int hi, Partition strategy, int[] buf, Metrics m) {
+        if (m != null) m.pivots += strategy == Partition.DUAL_PIVOT ? 2 : 1;
+        return switch (strategy) {
+            case THREE_WAY  -> partition3(a, lo, hi, m);
+            case DUAL_PIVOT -> dualPivot(a, lo, hi, m);
+            case LOMUTO -> {
+                int p = lomuto(a, lo, hi, m);
+                yield pack(p, p);
+            }
+            case VECTOR -> {
+                int p = buf != null ? vectorLomuto(a, lo, hi, buf, m) : lomuto(a, lo, hi, m);
+                yield pack(p, p);
+            }
+            case BLOCK -> {
+                int p = block(a, lo, hi, buf, m);
+                yield pack(p, p);
             }
-            swap(a, i, hi);
-            int p = i;
+        };
+    }
+
+    private static long pack(int lt, int gt) {
+        return ((long) lt << 32) | (gt & 0xffffffffL);
+    }
 
-            int leftSize  = p - lo;
-            int rightSize = hi - p;
+    // Lomuto around a random pivot; returns its final position
+    private static int lomuto(int[] a, int lo, int hi, Metrics m) {
+        int pivotIndex = ThreadLocalRandom.current().nextInt(lo, hi + 1);
+        long sw = swap(a, pivotIndex, hi);
+        int pivot = a[hi];
 
-            if (leftSize < rightSize) {
+        int i = lo;
+        int j = lo;
+        while (j < hi) {
+            if (a[j] <= pivot) {
+                sw += swap(a, i, j);
+                i++;
+            }
+            j++;
+        }
+        sw += swap(a, i, hi);
 
-                if (lo < p - 1) { recursions++; quick(a, lo, p - 1, depth + 1); }
-                lo = p + 1;
+        if (m != null) {
+            m.compares += hi - lo;
+            m.swaps += sw;
+        }
+        return i;
+    }
+
+    // same split as lomuto(): keys <= pivot are packed in place, the others go through buf
+    // and are copied back behind the pivot. Counts the moved keys as copies, not swaps.
+    private static int vectorLomuto(int[] a, int lo, int hi, int[] buf, Metrics m) {
+        int pivotIndex = ThreadLocalRandom.current().nextInt(lo, hi + 1);
+        int pivot = a[pivotIndex];
+        a[pivotIndex] = a[hi];
+
+        int p = SimdKernels.partitionLE(a, lo, hi, pivot, buf);
+        System.arraycopy(buf, lo, a, p + 1, hi - p);
+        a[p] = pivot;
+
+        if (m != null) {
+            m.compares += hi - lo;
+            m.copies += (hi - lo) + (hi - p) + 1;
+        }
+        return p;
+    }
+
+    // [lo, p) <= a[p] <= (p, hi]; keys equal to the pivot may land on both sides
+    private static int block(int[] a, int lo, int hi, int[] off, Metrics m) {
+        long sw = swap(a, BlockPartition.pivotIndex(a, lo, hi + 1, m), hi);
+        int pivot = a[hi];
+        int p = BlockPartition.split(a, lo, hi, pivot, pivot, off, m);
+        sw += swap(a, p, hi);
+        if (m != null) m.swaps += sw;
+        return p;
+    }
+
+    // Dutch flag around a random pivot, same scheme as Select.partition3
+    private static long partition3(int[] a, int lo, int hi, Metrics m) {
+        int pivot = a[ThreadLocalRandom.current().nextInt(lo, hi + 1)];
+        long cmp = 0, sw = 0;
+        int lt = lo, i = lo, gt = hi;
+        while (i <= gt) {
+            int x = a[i];
+            if (x < pivot) {
+                cmp++;
+                sw += swap(a, lt, i);
+                lt++; i++;
+            } else if (x > pivot) {
+                cmp += 2;
+                sw += swap(a, i, gt);
+                gt--;
             } else {
-                if (p + 1 < hi) { recursions++; quick(a, p + 1, hi, depth + 1); }
-                hi = p - 1;
+                cmp += 2;
+                i++;
+            }
+        }
+        if (m != null) { m.compares += cmp; m.swaps += sw; }
+        return pack(lt, gt);
+    }
+
+    // Yaroslavskiy: [lo, l) < p <= (l, g) <= q < (g, hi], pivots end at l and g
+    private static long dualPivot(int[] a, int lo, int hi, Metrics m) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long cmp = 1, sw = 0;
+        sw += swap(a, lo, rnd.nextInt(lo, hi + 1));
+        sw += swap(a, hi, rnd.nextInt(lo + 1, hi + 1));
+        if (a[lo] > a[hi]) sw += swap(a, lo, hi);
+        int p = a[lo], q = a[hi];
+
+        int l = lo + 1, g = hi - 1, k = l;
+        while (k <= g) {
+            cmp++;
+            if (a[k] < p) {
+                sw += swap(a, k, l);
+                l++;
+            } else {
+                cmp++;
+                if (a[k] > q) {
+                    while (a[g] > q && k < g) { g--; cmp++; }
+                    sw += swap(a, k, g);
+                    g--;
+                    cmp++;
+                    if (a[k] < p) {
+                        sw += swap(a, k, l);
+                        l++;
+                    }
+                }
+            }
+            k++;
+        }
+        l--;
+        g++;
+        sw += swap(a, lo, l);
+        sw += swap(a, hi, g);
+
+        if (m != null) { m.compares += cmp; m.swaps += sw; }
+        return pack(l, g);
+    }
+
+    // insertion sort на отрезке [lo, hi] (включительно)
+    private static void insertion(int[] a, int lo, int hi, Metrics m) {
+        long cmp = 0;
+        for (int i = lo + 1; i <= hi; i++) {
+            int x = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > x) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            cmp += (i - 1 - j) + (j >= lo ? 1 : 0);
+            a[j + 1] = x;
+        }
+        if (m != null) { m.compares += cmp; m.insertionCalls++; }
+    }
+
+    // same shape as quick(): the smaller parts are forked, the largest one is looped on,
+    // so every task (and the sequential tail) keeps O(log n) stack
+    private static final class QuickTask extends RecursiveAction {
+        private final int[] a;
+        private final int lo, hi, threshold, depth;
+        private final Partition strategy;
+        private final int[] buf;
+        private final Metrics m;
+
+        QuickTask(int[] a, int lo, int hi, int threshold, int depth, Partition strategy, int[] buf, Metrics m) {
+            this.a = a; this.lo = lo; this.hi = hi; this.threshold = threshold; this.depth = depth;
+            this.strategy = strategy; this.buf = buf; this.m = m;
+        }
+
+        @Override
+        protected void compute() {
+            int lo = this.lo, hi = this.hi;
+            List<QuickTask> forked = new ArrayList<>();
+            if (m != null) m.depth(depth);
+
+            while (hi - lo + 1 > threshold) {
+                long b = partition(a, lo, hi, strategy, buf, m);
+                int lt = (int) (b >>> 32), gt = (int) b;
+                boolean mid = strategy == Partition.DUAL_PIVOT && a[lt] != a[gt];
+
+                int leftSize  = lt - lo;
+                int rightSize = hi - gt;
+                int midSize   = mid ? gt - lt - 1 : 0;
+
+                if (leftSize >= rightSize && leftSize >= midSize) {
+                    if (mid) fork(forked, lt + 1, gt - 1);
+                    fork(forked, gt + 1, hi);
+                    hi = lt - 1;
+                } else if (rightSize >= midSize) {
+                    fork(forked, lo, lt - 1);
+                    if (mid) fork(forked, lt + 1, gt - 1);
+                    lo = gt + 1;
+                } else {
+                    fork(forked, lo, lt - 1);
+                    fork(forked, gt + 1, hi);
+                    lo = lt + 1;
+                    hi = gt - 1;
+                }
+            }
+            if (lo < hi) quick(a, lo, hi, depth, strategy, buf, m);
+
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                QuickTask t = forked.get(i);
+                t.join();
+                if (m != null) m.add(t.m);
             }
         }
+
+        // forked tasks count into their own Metrics, folded in after join
+        private void fork(List<QuickTask> forked, int lo, int hi) {
+            if (lo >= hi) return;
+            if (m != null) m.recursions++;
+            // VECTOR tasks share the n-int buffer by range, BLOCK tasks need their own offsets
+            int[] b = strategy == Partition.BLOCK ? new int[buf.length] : buf;
+            QuickTask t = new QuickTask(a, lo, hi, threshold, depth + 1, strategy, b, m == null ? null : new Metrics());
+            t.fork();
+            forked.add(t);
+        }
     }
 
-    private static void swap(int[] a, int i, int j) {
-        if (i == j) return;
-        swaps++;
+    // returns 1 if something was actually swapped (for the swaps counter)
+    private static int swap(int[] a, int i, int j) {
+        if (i == j) return 0;
         int t = a[i]; a[i] = a[j]; a[j] = t;
+        return 1;
+    }
+
+    // case-insensitive; an unknown name is reported and LOMUTO used, so a typo in an A/B
+    // run cannot make the class fail to initialize
+    private static Partition defaultPartition() {
+        String v = System.getProperty("quicksort.partition", "LOMUTO");
+        try {
+            return Partition.valueOf(v.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown -Dquicksort.partition=" + v + ", using LOMUTO (known: "
+                    + Arrays.toString(Partition.values()) + ")");
+            return Partition.LOMUTO;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * LSD radix sort, one byte per pass. The histograms of all bytes are built in a
+ * single scan, passes where every key has the same byte are skipped, and the top
+ * byte is read with its sign bit flipped so negative keys come first.
+ */
+public final class RadixSort {
+
+    private static final int RADIX = 256;
+    // parallelSort: below this size the sequential version is used
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    public static long copies = 0;
+    public static long passes = 0;
+    public static long lastNanos = 0;
+
+    public static void resetMetrics() {
+        copies = 0; passes = 0; lastNanos = 0;
+    }
+
+    public static void saveMetricsCsv(String label, int n) {
+        Metrics m = new Metrics();
+        m.copies = copies; m.passes = passes; m.nanos = lastNanos;
+        MetricsSink.shared().record(label, n, m);
+    }
+
+    // the static fields keep the result of the last no-Metrics call
+    private static void publish(Metrics m) {
+        copies = m.copies; passes = m.passes; lastNanos = m.nanos;
+    }
+
+    // ---------- int[] ----------
+
+    public static void sort(int[] a) {
+        Metrics m = new Metrics();
+        sort(a, m);
+        publish(m);
+    }
+
+    public static void sort(int[] a, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        sort(a, new int[a.length], m);
+    }
+
+    // scratch must be at least as long as a; callers sorting many arrays can reuse it
+    public static void sort(int[] a, int[] scratch, Metrics m) {
+        long t0 = System.nanoTime();
+        int n = a.length;
+        if (n > 1) {
+            int[][] count = new int[4][RADIX];
+            for (int x : a) {
+                count[0][x & 0xFF]++;
+                count[1][(x >>> 8) & 0xFF]++;
+                count[2][(x >>> 16) & 0xFF]++;
+                count[3][(x >>> 24) ^ 0x80]++;
+            }
+
+            int[] src = a, dst = scratch;
+            long moved = 0, done = 0;
+            for (int d = 0; d < 4; d++) {
+                int[] c = count[d];
+                if (c[digit(src[0], d)] == n) continue;   // all keys share this byte
+
+                int sum = 0;
+                for (int b = 0; b < RADIX; b++) { int t = c[b]; c[b] = sum; sum += t; }
+                for (int i = 0; i < n; i++) {
+                    int x = src[i];
+                    dst[c[digit(x, d)]++] = x;
+                }
+                int[] t = src; src = dst; dst = t;
+                moved += n;
+                done++;
+            }
+            if (src != a) { System.arraycopy(src, 0, a, 0, n); moved += n; }
+            if (m != null) { m.copies += moved; m.passes += done; }
+        }
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static int digit(int x, int d) {
+        return d == 3 ? (x >>> 24) ^ 0x80 : (x >>> (8 * d)) & 0xFF;
+    }
+
+    // ---------- long[] ----------
+
+    public static void sort(long[] a, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        sort(a, new long[a.length], m);
+    }
+
+    public static void sort(long[] a, long[] scratch, Metrics m) {
+        long t0 = System.nanoTime();
+        int n = a.length;
+        if (n > 1) {
+            int[][] count = new int[8][RADIX];
+            for (long x : a) {
+                for (int d = 0; d < 8; d++) count[d][digit(x, d)]++;
+            }
+
+            long[] src = a, dst = scratch;
+            long moved = 0, done = 0;
+            for (int d = 0; d < 8; d++) {
+                int[] c = count[d];
+                if (c[digit(src[0], d)] == n) continue;
+
+                int sum = 0;
+                for (int b = 0; b < RADIX; b++) { int t = c[b]; c[b] = sum; sum += t; }
+                for (int i = 0; i < n; i++) {
+                    long x = src[i];
+                    dst[c[digit(x, d)]++] = x;
+                }
+                long[] t = src; src = dst; dst = t;
+                moved += n;
+                done++;
+            }
+            if (src != a) { System.arraycopy(src, 0, a, 0, n); moved += n; }
+            if (m != null) { m.copies += moved; m.passes += done; }
+        }
+        if (m != null) m.nanos = System.nanoTime() - t0;
+    }
+
+    private static int digit(long x, int d) {
+        return d == 7 ? (int) (x >>> 56) ^ 0x80 : (int) (x >>> (8 * d)) & 0xFF;
+    }
+
+    // ---------- parallel int[] ----------
+
+    public static void parallelSort(int[] a) {
+        Metrics m = new Metrics();
+        parallelSort(a, ForkJoinPool.commonPool(), m);
+        publish(m);
+    }
+
+    // the array is cut into chunks; each pass builds per-chunk histograms in parallel,
+    // turns them into per-chunk bucket offsets, and every chunk scatters its own keys
+    public static void parallelSort(int[] a, ForkJoinPool pool, Metrics m) {
+        if (a == null || a.length <= 1) return;
+        int n = a.length;
+        if (n < PARALLEL_THRESHOLD) {
+            sort(a, m);
+            return;
+        }
+        long t0 = System.nanoTime();
+        int chunks = Math.min(pool.getParallelism() * 4, n / (PARALLEL_THRESHOLD / 4));
+        int[] scratch = new int[n];
+        int[][] local = new int[chunks][RADIX];
+
+        // histograms of all four bytes, only used to find passes that can be skipped
+        int[][][] all = new int[chunks][4][RADIX];
+        Chunks.forEach(pool, chunks, c -> {
+            int[][] h = all[c];
+            for (int i = from(c, chunks, n), e = from(c + 1, chunks, n); i < e; i++) {
+                int x = a[i];
+                h[0][x & 0xFF]++;
+                h[1][(x >>> 8) & 0xFF]++;
+                h[2][(x >>> 16) & 0xFF]++;
+                h[3][(x >>> 24) ^ 0x80]++;
+            }
+        });
+
+        int[] cur = a, next = scratch;
+        long moved = 0, done = 0;
+        for (int d = 0; d < 4; d++) {
+            final int dd = d;
+            int b0 = digit(a[0], d), same = 0;
+            for (int c = 0; c < chunks; c++) same += all[c][d][b0];
+            if (same == n) continue;
+
+            int[] src = cur, dst = next;
+            Chunks.forEach(pool, chunks, c -> {
+                int[] h = local[c];
+                Arrays.fill(h, 0);
+                for (int i = from(c, chunks, n), e = from(c + 1, chunks, n); i < e; i++) h[digit(src[i], dd)]++;
+            });
+            // bucket-major, chunk-minor: keeps the pass stable
+            int sum = 0;
+            for (int b = 0; b < RADIX; b++) {
+                for (int c = 0; c < chunks; c++) { int t = local[c][b]; local[c][b] = sum; sum += t; }
+            }
+            Chunks.forEach(pool, chunks, c -> {
+                int[] off = local[c];
+                for (int i = from(c, chunks, n), e = from(c + 1, chunks, n); i < e; i++) {
+                    int x = src[i];
+                    dst[off[digit(x, dd)]++] = x;
+                }
+            });
+            cur = dst; next = src;
+            moved += n;
+            done++;
+        }
+        if (cur != a) { System.arraycopy(cur, 0, a, 0, n); moved += n; }
+        if (m != null) {
+            m.copies += moved;
+            m.passes += done;
+            m.nanos = System.nanoTime() - t0;
+        }
+    }
+
+    private static int from(int c, int chunks, int n) {
+        return (int) ((long) n * c / chunks);
+    }
+}
@@ -1,12 +1,24 @@
 package org.example;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
 
 public final class Select {
 
+    // introSelect finishes ranges up to this size with insertion sort
+    private static final int SMALL = 16;
+
+    // how introSelect runs its partition3 step
+    public enum Partition {
+        SCALAR,   // in place, branchy
+        VECTOR,   // Vector API kernel with an n-int scratch buffer; SCALAR when Simd.enabled() is false
+        BLOCK     // two branchless block passes (< pivot | >= pivot, then == | >), ninther pivots
+    }
+
+    // introSelect(a, k[, m]) uses this mode; -Dselect.partition=block switches a whole JVM
+    public static final Partition DEFAULT_PARTITION = defaultPartition();
+
     public static long compares = 0;
     public static long copies = 0;
     public static int  recursions = 0;
@@ -22,41 +34,49 @@ public final class Select {
     }
 
     public static void saveMetricsCsv(String label, int n) {
-        double ms = lastNanos / 1_000_000.0;
-        try (PrintWriter out = new PrintWriter(new FileWriter("metrics.csv", true))) {
-            out.println(
-                    label
-                            + ", array size: " + n
-                            + ", compares: " + compares
-                            + ", copies: " + copies
-                            + ", recursions: " + recursions
-                            + ", max depth: " + maxDepth
-                            + ", time in ms: " + ms
-            );
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        Metrics m = new Metrics();
+        m.compares = compares;
+        m.copies = copies;
+        m.recursions = recursions;
+        m.maxDepth = maxDepth;
+        m.nanos = lastNanos;
+        MetricsSink.shared().record(label, n, m);
     }
 
     public static int select(int[] a, int k) {
-        resetMetrics();
+        Metrics m = new Metrics();
+        int res = select(a, k, m);
+        publish(m);
+        return res;
+    }
+
+    // m == null: no counting at all
+    public static int select(int[] a, int k, Metrics m) {
         if (a == null || a.length == 0 || k < 0 || k >= a.length) {
             throw new IllegalArgumentException("Invalid input");
         }
         long t0 = System.nanoTime();
-        int res = select(a, 0, a.length, k, 1);
-        lastNanos = System.nanoTime() - t0;
+        int res = select(a, 0, a.length, k, 1, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
         return res;
     }
 
-    private static int select(int[] a, int lo, int hi, int k, int depth) {
-        recursions++;
-        if (depth > maxDepth) maxDepth = depth;
+    // the static fields keep the result of the last no-Metrics call
+    private static void publish(Metrics m) {
+        compares = m.compares;
+        copies = m.copies;
+        recursions = (int) m.recursions;
+        maxDepth = m.maxDepth;
+        lastNanos = m.nanos;
+    }
+
+    private static int select(int[] a, int lo, int hi, int k, int depth, Metrics m) {
+        if (m != null) { m.recursions++; m.depth(depth); }
 
         int n = hi - lo;
         if (n <= 5) {
             Arrays.sort(a, lo, hi);
-            copies += n;
+            if (m != null) m.copies += n;
             return a[lo + k];
         }
 
@@ -66,43 +86,241 @@ public final class Select {
             int start = lo + i * 5;
             int end = Math.min(start + 5, hi);
             Arrays.sort(a, start, end);
-            copies += (end - start);
             medians[i] = a[start + (end - start) / 2];
         }
-        int pivot = select(medians, 0, groups, groups / 2, depth + 1);
+        if (m != null) m.copies += n;
+        int pivot = select(medians, 0, groups, groups / 2, depth + 1, m);
 
-        int[] eq = partition3(a, lo, hi, pivot);
-        int L = eq[0];
-        int R = eq[1];
+        long eq = partition3(a, lo, hi, pivot, m);
+        int L = (int) (eq >>> 32);
+        int R = (int) eq;
 
         int leftSize = L - lo;
         int midSize  = R - L + 1;
 
         if (k < leftSize) {
-            return select(a, lo, L, k, depth + 1);
+            return select(a, lo, L, k, depth + 1, m);
         } else if (k < leftSize + midSize) {
             return pivot;
         } else {
-            return select(a, R + 1, hi, k - leftSize - midSize, depth + 1);
+            return select(a, R + 1, hi, k - leftSize - midSize, depth + 1, m);
+        }
+    }
+
+    // ---------- introselect (in place, no allocations) ----------
+
+    public static int introSelect(int[] a, int k) {
+        Metrics m = new Metrics();
+        int res = introSelect(a, k, m);
+        publish(m);
+        return res;
+    }
+
+    // random-pivot quickselect; after ~2 log2(n) steps that do not shrink the range
+    // by a quarter every further pivot is a median of medians, so the worst case stays linear
+    public static int introSelect(int[] a, int k, Metrics m) {
+        return introSelect(a, k, DEFAULT_PARTITION, m);
+    }
+
+    public static int introSelect(int[] a, int k, Partition partition, Metrics m) {
+        if (a == null || a.length == 0 || k < 0 || k >= a.length) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        long t0 = System.nanoTime();
+        int budget = 2 * (32 - Integer.numberOfLeadingZeros(a.length));
+        Partition mode = partition == Partition.VECTOR && !Simd.enabled() ? Partition.SCALAR : partition;
+        int[] buf = switch (mode) {
+            case VECTOR -> new int[a.length];
+            case BLOCK  -> new int[2 * BlockPartition.BLOCK];
+            default     -> null;
+        };
+        int res = introSelect(a, 0, a.length, k, budget, 1, mode, buf, m);
+        if (m != null) m.nanos = System.nanoTime() - t0;
+        return res;
+    }
+
+    // k is an absolute index in [lo, hi); budget == 0 means median-of-medians pivots only;
+    // buf is the scratch of the VECTOR and BLOCK modes
+    private static int introSelect(int[] a, int lo, int hi, int k, int budget, int depth,
+                                   Partition mode, int[] buf, Metrics m) {
+        if (m != null) { m.recursions++; m.depth(depth); }
+
+        while (hi - lo > SMALL) {
+            int n = hi - lo;
+            int pivot = budget == 0 ? momPivot(a, lo, hi, depth, mode, buf, m)
+                    : mode == Partition.BLOCK ? a[BlockPartition.pivotIndex(a, lo, hi, m)]
+                    : medianOf3(a, lo, hi, m);
+            if (m != null) m.pivots++;
+
+            long eq = partition3(a, lo, hi, pivot, mode, buf, m);
+            int L = (int) (eq >>> 32);
+            int R = (int) eq;
+
+            if (k < L) hi = L;
+            else if (k > R) lo = R + 1;
+            else return pivot;
+
+            if (budget > 0 && hi - lo > n - n / 4) budget--;
         }
+        insertion(a, lo, hi, m);
+        return a[k];
     }
 
-    private static int[] partition3(int[] a, int lo, int hi, int pivot) {
+    // ---------- several order statistics in one pass ----------
+
+    public static int[] selectMany(int[] a, int[] ks) {
+        Metrics m = new Metrics();
+        int[] res = selectMany(a, ks, m);
+        publish(m);
+        return res;
+    }
+
+    // res[i] is the ks[i]-th smallest; afterwards every a[ks[i]] holds its order statistic.
+    // Each partition sends the requested ranks only to the sides that contain them.
+    public static int[] selectMany(int[] a, int[] ks, Metrics m) {
+        if (a == null || a.length == 0 || ks == null) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        int[] sorted = ks.clone();
+        Arrays.sort(sorted);
+        if (sorted.length > 0 && (sorted[0] < 0 || sorted[sorted.length - 1] >= a.length)) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        long t0 = System.nanoTime();
+        int budget = 2 * (32 - Integer.numberOfLeadingZeros(a.length));
+        multiSelect(a, 0, a.length, sorted, 0, sorted.length, budget, 1, m);
+        int[] res = new int[ks.length];
+        for (int i = 0; i < ks.length; i++) res[i] = a[ks[i]];
+        if (m != null) m.nanos = System.nanoTime() - t0;
+        return res;
+    }
+
+    // ks[kl, kh) is sorted and lies in [lo, hi); the left side is recursed into, the right one looped on
+    private static void multiSelect(int[] a, int lo, int hi, int[] ks, int kl, int kh,
+                                    int budget, int depth, Metrics m) {
+        if (m != null) { m.recursions++; m.depth(depth); }
+
+        while (kl < kh) {
+            if (kh - kl == 1) {
+                introSelect(a, lo, hi, ks[kl], budget, depth + 1, Partition.SCALAR, null, m);
+                return;
+            }
+            int n = hi - lo;
+            if (n <= SMALL) {
+                insertion(a, lo, hi, m);
+                return;
+            }
+
+            int pivot = budget > 0 ? medianOf3(a, lo, hi, m) : momPivot(a, lo, hi, depth, Partition.SCALAR, null, m);
+            if (m != null) m.pivots++;
+            long eq = partition3(a, lo, hi, pivot, m);
+            int L = (int) (eq >>> 32);
+            int R = (int) eq;
+
+            int i1 = kl;
+            while (i1 < kh && ks[i1] < L) i1++;
+            int i2 = i1;
+            while (i2 < kh && ks[i2] <= R) i2++;
+
+            if (budget > 0 && Math.max(L - lo, hi - R - 1) > n - n / 4) budget--;
+
+            if (kl < i1) multiSelect(a, lo, L, ks, kl, i1, budget, depth + 1, m);
+            lo = R + 1;
+            kl = i2;
+        }
+    }
+
+    private static int medianOf3(int[] a, int lo, int hi, Metrics m) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int x = a[r.nextInt(lo, hi)], y = a[r.nextInt(lo, hi)], z = a[r.nextInt(lo, hi)];
+        if (m != null) m.compares += 3;
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+
+    // group medians are swapped to the front of the range, so the recursive
+    // median-of-medians runs on a[lo, lo + groups) instead of a new array
+    private static int momPivot(int[] a, int lo, int hi, int depth, Partition mode, int[] buf, Metrics m) {
+        int groups = 0;
+        for (int start = lo; start < hi; start += 5) {
+            int end = Math.min(start + 5, hi);
+            insertion(a, start, end, m);
+            int t = a[lo + groups]; a[lo + groups] = a[start + (end - start) / 2]; a[start + (end - start) / 2] = t;
+            groups++;
+        }
+        if (m != null) m.copies += 2L * groups;
+        return introSelect(a, lo, lo + groups, lo + groups / 2, 0, depth + 1, mode, buf, m);
+    }
+
+    private static void insertion(int[] a, int lo, int hi, Metrics m) {
+        long cmp = 0, cp = 0;
+        for (int i = lo + 1; i < hi; i++) {
+            int x = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > x) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            int shifts = i - 1 - j;
+            cmp += shifts + (j >= lo ? 1 : 0);
+            cp += shifts + 1;
+            a[j + 1] = x;
+        }
+        if (m != null) { m.compares += cmp; m.copies += cp; }
+    }
+
+    private static long partition3(int[] a, int lo, int hi, int pivot, Partition mode, int[] buf, Metrics m) {
+        switch (mode) {
+            case VECTOR -> {
+                if (m != null) {
+                    m.compares += 2L * (hi - lo);
+                    m.copies += 2L * (hi - lo);
+                }
+                return SimdKernels.partition3(a, lo, hi, pivot, buf);
+            }
+            case BLOCK -> {
+                // pivot is a key of the range, so [lt, gt] is not empty
+                int lt = pivot == Integer.MIN_VALUE ? lo : BlockPartition.split(a, lo, hi, pivot, pivot - 1, buf, m);
+                int ge = pivot == Integer.MAX_VALUE ? hi : BlockPartition.split(a, lt, hi, pivot + 1, pivot, buf, m);
+                return ((long) lt << 32) | ((ge - 1) & 0xffffffffL);
+            }
+            default -> {
+                return partition3(a, lo, hi, pivot, m);
+            }
+        }
+    }
+
+    // returns (lt << 32 | gt): a[lo, lt) < pivot == a[lt, gt] < a(gt, hi)
+    private static long partition3(int[] a, int lo, int hi, int pivot, Metrics m) {
+        long cmp = 0, cp = 0;
         int lt = lo, i = lo, gt = hi - 1;
         while (i <= gt) {
             if (a[i] < pivot) {
-                compares++;
-                int t = a[lt]; a[lt] = a[i]; a[i] = t; copies += 2;
+                cmp++;
+                int t = a[lt]; a[lt] = a[i]; a[i] = t; cp += 2;
                 lt++; i++;
             } else if (a[i] > pivot) {
-                compares += 2;
-                int t = a[i]; a[i] = a[gt]; a[gt] = t; copies += 2;
+                cmp += 2;
+                int t = a[i]; a[i] = a[gt]; a[gt] = t; cp += 2;
                 gt--;
             } else {
-                compares += 2;
+                cmp += 2;
                 i++;
             }
         }
-        return new int[]{lt, gt};
+        if (m != null) { m.compares += cmp; m.copies += cp; }
+        return ((long) lt << 32) | (gt & 0xffffffffL);
+    }
+
+    // case-insensitive; an unknown name is reported and SCALAR used, so a typo in an A/B
+    // run cannot make the class fail to initialize
+    private static Partition defaultPartition() {
+        String v = System.getProperty("select.partition", "SCALAR");
+        try {
+            return Partition.valueOf(v.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown -Dselect.partition=" + v + ", using SCALAR (known: "
+                    + Arrays.toString(Partition.values()) + ")");
+            return Partition.SCALAR;
+        }
     }
 }
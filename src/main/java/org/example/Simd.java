@@ -0,0 +1,35 @@
+package org.example;
+
+/**
+ * Runtime switch for the Vector API kernels ({@code jdk.incubator.vector}, see SimdKernels).
+ * They are used when the JVM was started with {@code --add-modules jdk.incubator.vector},
+ * 8-lane int vectors are native on this CPU (AVX2 or better) and {@code -Dsimd=false} is not
+ * set; otherwise the callers ({@code QuickSort.Partition.VECTOR}, {@code Select.Partition.VECTOR},
+ * {@code MergeSort.vectorSort}) take their scalar paths. The decision is made once per JVM.
+ */
+public final class Simd {
+
+    private static final boolean ENABLED = detect();
+
+    private Simd() {}
+
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    // the JVM option a child JVM needs to get the same answer, or null
+    static String jvmOption() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                ? "--add-modules=jdk.incubator.vector" : null;
+    }
+
+    private static boolean detect() {
+        if (!Boolean.parseBoolean(System.getProperty("simd", "true"))) return false;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try {
+            return SimdKernels.supported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.example;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels on 8-lane int vectors (AVX2, and the low half of AVX-512).
+ * Only reached through {@link Simd}, so this class is never loaded when the
+ * {@code jdk.incubator.vector} module is missing.
+ *
+ * JDK 17 has no {@code compress}: a partition step turns the compare mask into an
+ * 8-bit index and packs the selected lanes to the front with a precomputed shuffle
+ * ({@link #PACK}), then stores the whole vector and advances by the number of lanes.
+ * The lanes past that count are junk that the next store (or the copy-back) overwrites.
+ */
+final class SimdKernels {
+
+    private static final VectorSpecies<Integer> S = IntVector.SPECIES_256;
+    static final int LANES = 8;
+
+    // PACK[bits]: lanes whose bit is set first (in order), then the others
+    @SuppressWarnings("unchecked")
+    private static final VectorShuffle<Integer>[] PACK = (VectorShuffle<Integer>[]) new VectorShuffle<?>[1 << LANES];
+    private static final VectorShuffle<Integer> REVERSE = VectorShuffle.fromOp(S, i -> LANES - 1 - i);
+    // lane i holds 1 << i; blending it under a mask and adding the lanes gives the mask bits
+    // (VectorMask.toLong is not intrinsified on JDK 17)
+    private static final IntVector LANE_BIT =
+            IntVector.broadcast(S, 1).lanewise(VectorOperators.LSHL, IntVector.zero(S).addIndex(1));
+    private static final IntVector ZERO = IntVector.zero(S);
+
+    // bitonic network stages: partner i ^ j; lanes in TAKE_MAX keep the larger value.
+    // SORT_*: the 6 stages of an 8-lane bitonic sort; HALF_*: the 3 stages that sort a bitonic vector
+    private static final VectorShuffle<Integer>[] SORT_PARTNER, HALF_PARTNER;
+    private static final VectorMask<Integer>[] SORT_TAKE_MAX, HALF_TAKE_MAX;
+
+    static {
+        for (int bits = 0; bits < PACK.length; bits++) {
+            int[] idx = new int[LANES];
+            int k = 0;
+            for (int i = 0; i < LANES; i++) if ((bits >>> i & 1) != 0) idx[k++] = i;
+            for (int i = 0; i < LANES; i++) if ((bits >>> i & 1) == 0) idx[k++] = i;
+            PACK[bits] = VectorShuffle.fromArray(S, idx, 0);
+        }
+
+        @SuppressWarnings("unchecked") VectorShuffle<Integer>[] sp = (VectorShuffle<Integer>[]) new VectorShuffle<?>[6];
+        @SuppressWarnings("unchecked") VectorMask<Integer>[] sm = (VectorMask<Integer>[]) new VectorMask<?>[6];
+        int s = 0;
+        for (int k = 2; k <= LANES; k <<= 1) {
+            for (int j = k >> 1; j > 0; j >>= 1, s++) {
+                boolean[] max = new boolean[LANES];
+                // ascending block: the lower lane of a pair takes the min
+                for (int i = 0; i < LANES; i++) max[i] = ((i & j) == 0) != ((i & k) == 0);
+                final int jj = j;
+                sp[s] = VectorShuffle.fromOp(S, i -> i ^ jj);
+                sm[s] = VectorMask.fromArray(S, max, 0);
+            }
+        }
+        SORT_PARTNER = sp;
+        SORT_TAKE_MAX = sm;
+
+        @SuppressWarnings("unchecked") VectorShuffle<Integer>[] hp = (VectorShuffle<Integer>[]) new VectorShuffle<?>[3];
+        @SuppressWarnings("unchecked") VectorMask<Integer>[] hm = (VectorMask<Integer>[]) new VectorMask<?>[3];
+        for (int j = LANES >> 1, t = 0; j > 0; j >>= 1, t++) {
+            boolean[] max = new boolean[LANES];
+            for (int i = 0; i < LANES; i++) max[i] = (i & j) != 0;
+            final int jj = j;
+            hp[t] = VectorShuffle.fromOp(S, i -> i ^ jj);
+            hm[t] = VectorMask.fromArray(S, max, 0);
+        }
+        HALF_PARTNER = hp;
+        HALF_TAKE_MAX = hm;
+    }
+
+    private SimdKernels() {}
+
+    // true when 8-lane int vectors are native, not emulated
+    static boolean supported() {
+        return IntVector.SPECIES_PREFERRED.length() >= LANES;
+    }
+
+    // ---------- partition ----------
+
+    // a[lo, hi): keys <= pivot are packed to a[lo, w) in place, the others go in order to
+    // buf[lo, lo + hi - w); returns w. Both stores stay inside [lo, hi) of their array.
+    static int partitionLE(int[] a, int lo, int hi, int pivot, int[] buf) {
+        IntVector p = IntVector.broadcast(S, pivot);
+        int w = lo, r = lo, i = lo;
+        for (int end = hi - LANES; i <= end; i += LANES) {
+            IntVector v = IntVector.fromArray(S, a, i);
+            int le = bits(v.compare(VectorOperators.LE, p));
+            int n = Integer.bitCount(le);
+            v.rearrange(PACK[le]).intoArray(a, w);
+            v.rearrange(PACK[~le & 0xFF]).intoArray(buf, r);
+            w += n;
+            r += LANES - n;
+        }
+        for (; i < hi; i++) {
+            int x = a[i];
+            if (x <= pivot) a[w++] = x;
+            else buf[r++] = x;
+        }
+        return w;
+    }
+
+    // the three-way split of Select.partition3, returns (lt << 32 | gt): a[lo, lt) < pivot == a[lt, gt] < a(gt, hi)
+    static long partition3(int[] a, int lo, int hi, int pivot, int[] buf) {
+        IntVector p = IntVector.broadcast(S, pivot);
+        int w = lo, r = lo, i = lo;
+        for (int end = hi - LANES; i <= end; i += LANES) {
+            IntVector v = IntVector.fromArray(S, a, i);
+            int lt = bits(v.compare(VectorOperators.LT, p));
+            int gt = bits(v.compare(VectorOperators.GT, p));
+            v.rearrange(PACK[lt]).intoArray(a, w);
+            v.rearrange(PACK[gt]).intoArray(buf, r);
+            w += Integer.bitCount(lt);
+            r += Integer.bitCount(gt);
+        }
+        for (; i < hi; i++) {
+            int x = a[i];
+            if (x < pivot) a[w++] = x;
+            else if (x > pivot) buf[r++] = x;
+        }
+        int greater = r - lo, eqEnd = hi - greater;
+        for (int k = w; k < eqEnd; k++) a[k] = pivot;
+        System.arraycopy(buf, lo, a, eqEnd, greater);
+        return ((long) w << 32) | ((eqEnd - 1) & 0xffffffffL);
+    }
+
+    private static int bits(VectorMask<Integer> mask) {
+        return ZERO.blend(LANE_BIT, mask).reduceLanes(VectorOperators.ADD);
+    }
+
+    // ---------- bitonic networks ----------
+
+    private static IntVector sort8(IntVector v) {
+        for (int s = 0; s < SORT_PARTNER.length; s++) v = exchange(v, SORT_PARTNER[s], SORT_TAKE_MAX[s]);
+        return v;
+    }
+
+    // sorts a bitonic vector
+    private static IntVector half(IntVector v) {
+        for (int s = 0; s < HALF_PARTNER.length; s++) v = exchange(v, HALF_PARTNER[s], HALF_TAKE_MAX[s]);
+        return v;
+    }
+
+    private static IntVector exchange(IntVector v, VectorShuffle<Integer> partner, VectorMask<Integer> takeMax) {
+        IntVector w = v.rearrange(partner);
+        return v.min(w).blend(v.max(w), takeMax);
+    }
+
+    // a[lo, lo + n), n <= 16: padded with MAX_VALUE in tmp (length >= 16), two 8-lane sorts and a merge
+    static void sort16(int[] a, int lo, int n, int[] tmp) {
+        System.arraycopy(a, lo, tmp, 0, n);
+        for (int i = n; i < 2 * LANES; i++) tmp[i] = Integer.MAX_VALUE;
+        IntVector x = sort8(IntVector.fromArray(S, tmp, 0));
+        IntVector y = sort8(IntVector.fromArray(S, tmp, LANES)).rearrange(REVERSE);
+        half(x.min(y)).intoArray(tmp, 0);
+        half(x.max(y)).intoArray(tmp, LANES);
+        System.arraycopy(tmp, 0, a, lo, n);
+    }
+
+    // ---------- merge ----------
+
+    // merges the sorted runs a[lo, mid) and a[mid, hi), both at least 8 long, through buf[lo, hi).
+    // The vector loop keeps the 8 largest seen so far in `carry`: each step loads 8 keys from the
+    // run with the smaller head, merges them with carry (bitonic), stores the lower 8 and keeps the upper.
+    static void merge(int[] a, int lo, int mid, int hi, int[] buf, int[] tmp) {
+        IntVector carry = IntVector.fromArray(S, a, lo);
+        int i = lo + LANES, j = mid, k = lo;
+        while (i <= mid - LANES && j <= hi - LANES) {
+            IntVector next;
+            if (a[i] <= a[j]) { next = IntVector.fromArray(S, a, i); i += LANES; }
+            else              { next = IntVector.fromArray(S, a, j); j += LANES; }
+            IntVector r = next.rearrange(REVERSE);
+            half(carry.min(r)).intoArray(buf, k);
+            carry = half(carry.max(r));
+            k += LANES;
+        }
+        // scalar tail: carry (sorted, in tmp) and what is left of both runs
+        carry.intoArray(tmp, 0);
+        int c = 0;
+        while (k < hi) {
+            int x = c < LANES ? tmp[c] : Integer.MAX_VALUE;
+            if (i < mid && a[i] <= x && (j >= hi || a[i] <= a[j])) buf[k++] = a[i++];
+            else if (j < hi && a[j] <= x) buf[k++] = a[j++];
+            else buf[k++] = tmp[c++];
+        }
+        System.arraycopy(buf, lo, a, lo, hi - lo);
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+/**
+ * One-pass summary of a stream of non-negative samples: count, mean and variance
+ * (Welford), min/max, and a log-bucket histogram for quantiles. A sample {@code x > 0}
+ * falls into bucket {@code ceil(log_γ x)}, so a quantile is reported within a relative
+ * error of {@code (γ − 1) / (γ + 1)} ≈ 1% whatever the range of the data; memory is
+ * one counter per occupied bucket range (35 buckets per factor of 2).
+ * Two instances built on disjoint parts of a stream {@link #merge} into the summary of
+ * the whole stream (quantiles merge exactly, the moments up to rounding).
+ */
+public final class Stats {
+
+    private static final double GAMMA = 1.02;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private long count;
+    private double mean, m2;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+    private long zeros;                          // samples <= 0
+    private long[] buckets = new long[0];        // buckets[i] counts bucket offset + i
+    private int offset;
+
+    public void add(double x) {
+        count++;
+        double d = x - mean;
+        mean += d / count;
+        m2 += d * (x - mean);
+        if (x < min) min = x;
+        if (x > max) max = x;
+
+        if (x <= 0) {
+            zeros++;
+        } else {
+            int i = slot(bucket(x));   // may replace the array, so not inlined into the index
+            buckets[i]++;
+        }
+    }
+
+    // adds the samples summarized by o (o is not changed)
+    public void merge(Stats o) {
+        if (o.count == 0) return;
+        if (count == 0) {
+            mean = o.mean;
+            m2 = o.m2;
+        } else {
+            long n = count + o.count;
+            double d = o.mean - mean;
+            mean += d * o.count / n;
+            m2 += o.m2 + d * d * ((double) count * o.count / n);
+        }
+        count += o.count;
+        min = Math.min(min, o.min);
+        max = Math.max(max, o.max);
+        zeros += o.zeros;
+        for (int i = 0; i < o.buckets.length; i++) {
+            if (o.buckets[i] != 0) {
+                int j = slot(o.offset + i);
+                buckets[j] += o.buckets[i];
+            }
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    // sample variance (n − 1 in the denominator)
+    public double variance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    public double stddev() {
+        return Math.sqrt(variance());
+    }
+
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    // q in [0, 1]; the value of rank ceil(q * count) (nearest rank), within the bucket error
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        if (rank <= zeros) return min;   // samples <= 0 are not bucketed
+        long seen = zeros;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                // bucket covers (γ^(b-1), γ^b]; this point is within (γ-1)/(γ+1) of both ends
+                double v = Math.pow(GAMMA, offset + i) * 2 / (1 + GAMMA);
+                return Math.max(min, Math.min(max, v));
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(double x) {
+        return (int) Math.ceil(Math.log(x) / LOG_GAMMA);
+    }
+
+    // array slot for bucket b, growing the array so that it covers b
+    private int slot(int b) {
+        if (buckets.length == 0) {
+            buckets = new long[64];
+            offset = b - 32;
+        } else if (b < offset || b >= offset + buckets.length) {
+            int lo = Math.min(offset, b), hi = Math.max(offset + buckets.length, b + 1);
+            int len = Math.max(hi - lo, 2 * buckets.length);
+            int newOffset = b < offset ? hi - len : lo;
+            long[] grown = new long[len];
+            System.arraycopy(buckets, 0, grown, offset - newOffset, buckets.length);
+            buckets = grown;
+            offset = newOffset;
+        }
+        return b - offset;
+    }
+
+    @Override
+    public String toString() {
+        return "count: " + count
+                + ", mean: " + mean()
+                + ", stddev: " + stddev()
+                + ", min: " + min()
+                + ", p50: " + quantile(0.50)
+                + ", p95: " + quantile(0.95)
+                + ", p99: " + quantile(0.99)
+                + ", max: " + max();
+    }
+}
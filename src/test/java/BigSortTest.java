@@ -0,0 +1,103 @@
+import org.example.BigSort;
+import org.example.Metrics;
+import org.example.OffHeapIntArray;
+import org.example.OffHeapLongArray;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+
+class BigSortTest {
+
+    private static int[] randArr(int n, long seed) {
+        Random r = new Random(seed);
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) a[i] = r.nextInt(2_000_001) - 1_000_000;
+        return a;
+    }
+
+    private static int[] toArray(OffHeapIntArray a) {
+        int[] r = new int[(int) a.length()];
+        a.copyTo(0, r, 0, r.length);
+        return r;
+    }
+
+    @Test
+    void int_sorts_across_chunks() {
+        int[] a = randArr(50_000, 1);
+        for (int i = 0; i < a.length; i += 4) a[i] = 7;   // duplicates
+        int[] exp = a.clone();
+        Arrays.sort(exp);
+
+        // 1024-int chunks: every sort crosses many buffer boundaries
+        OffHeapIntArray q = OffHeapIntArray.of(a, 1 << 10);
+        Metrics m = new Metrics();
+        BigSort.quickSort(q, m);
+        assertArrayEquals(exp, toArray(q));
+        assertTrue(m.maxDepth > 1 && m.pivots > 0);
+
+        OffHeapIntArray s = OffHeapIntArray.of(a, 1 << 10);
+        BigSort.mergeSort(s, OffHeapIntArray.allocate(a.length, 1 << 9), null);
+        assertArrayEquals(exp, toArray(s));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BigSort.mergeSort(OffHeapIntArray.of(a, 1 << 10), OffHeapIntArray.allocate(10), null));
+    }
+
+    @Test
+    void int_select_matches_sort() {
+        int n = 30_001;
+        int[][] inputs = {randArr(n, 2), new int[n], new int[n]};
+        for (int i = 0; i < n; i++) inputs[2][i] = i % 5;
+        for (int[] a : inputs) {
+            int[] exp = a.clone();
+            Arrays.sort(exp);
+            for (long k : new long[]{0, 1, n / 3, n / 2, n - 1}) {
+                assertEquals(exp[(int) k], BigSort.select(OffHeapIntArray.of(a, 1 << 11), k, null));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> BigSort.select(OffHeapIntArray.allocate(3), 3, null));
+    }
+
+    @Test
+    void long_sort_and_select() {
+        Random r = new Random(3);
+        long[] a = new long[40_000];
+        for (int i = 0; i < a.length; i++) a[i] = i % 3 == 0 ? r.nextInt(10) : r.nextLong();
+        long[] exp = a.clone();
+        Arrays.sort(exp);
+
+        OffHeapLongArray q = OffHeapLongArray.of(a, 1 << 10);
+        BigSort.quickSort(q, null);
+        long[] got = new long[a.length];
+        q.copyTo(0, got, 0, got.length);
+        assertArrayEquals(exp, got);
+
+        OffHeapLongArray s = OffHeapLongArray.of(a, 1 << 10);
+        BigSort.mergeSort(s, OffHeapLongArray.allocate(a.length, 1 << 12), new Metrics());
+        s.copyTo(0, got, 0, got.length);
+        assertArrayEquals(exp, got);
+
+        assertEquals(exp[a.length / 2], BigSort.select(OffHeapLongArray.of(a, 1 << 10), a.length / 2, null));
+        assertEquals(exp[a.length - 1], BigSort.select(OffHeapLongArray.of(a, 1 << 10), a.length - 1, null));
+    }
+
+    @Test
+    void bulk_copies_cross_chunks() {
+        OffHeapIntArray a = OffHeapIntArray.allocate(5_000, 1 << 8);
+        int[] src = randArr(3_000, 4);
+        a.copyFrom(src, 100, 1_000, 2_900);
+        for (int i = 0; i < 2_900; i++) assertEquals(src[100 + i], a.get(1_000 + i));
+        assertEquals(0, a.get(999));
+        assertEquals(0, a.get(3_900));
+
+        int[] back = new int[2_900];
+        a.copyTo(1_000, back, 0, back.length);
+        assertArrayEquals(Arrays.copyOfRange(src, 100, 3_000), back);
+        assertThrows(IllegalArgumentException.class, () -> OffHeapIntArray.allocate(10, 1000));
+        // 2^30 ints would be a 4 GB buffer: rejected instead of overflowing to a 0-byte one
+        assertThrows(IllegalArgumentException.class, () -> OffHeapIntArray.allocate(10, 1 << 30));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapLongArray.allocate(10, 1 << 28));
+    }
+}
@@ -48,6 +48,56 @@ class ClosestPairTest {
         assertEquals(exp, got, 1e-9);
     }
 
+    @Test
+    void soa_matches_points_and_returns_pair() {
+        ClosestPair.Point[] pts = randPts(3000, 77);
+        int[] xs = new int[pts.length], ys = new int[pts.length];
+        for (int i = 0; i < pts.length; i++) { xs[i] = pts[i].x; ys[i] = pts[i].y; }
+
+        ClosestPair.Result r = ClosestPair.closest(xs, ys);
+        assertEquals(ClosestPair.closest(pts), r.distance, 1e-9);
+        assertTrue(r.i < r.j);
+        assertEquals(r.distance, Math.hypot(xs[r.i] - xs[r.j], ys[r.i] - ys[r.j]), 1e-9);
+
+        long[] packed = new long[xs.length];
+        for (int i = 0; i < xs.length; i++) packed[i] = ((long) xs[i] << 32) | (ys[i] & 0xffffffffL);
+        assertEquals(r.distance, ClosestPair.closest(packed, null).distance, 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> ClosestPair.closest((long[]) null, null));
+
+        ClosestPair.Result dup = ClosestPair.closest(new int[]{7, -5, 7}, new int[]{7, 1, 7});
+        assertEquals(0.0, dup.distance, 1e-9);
+        assertEquals(0, dup.i);
+        assertEquals(2, dup.j);
+        assertEquals(-1, ClosestPair.closest(new int[]{1}, new int[]{1}).i);
+    }
+
+    @Test
+    void parallel_matches_sequential() {
+        for (long seed = 1; seed <= 3; seed++) {
+            ClosestPair.Point[] pts = randPts(60_000, seed);
+            int[] xs = new int[pts.length], ys = new int[pts.length];
+            for (int i = 0; i < pts.length; i++) { xs[i] = pts[i].x; ys[i] = pts[i].y; }
+            ClosestPair.Result seq = ClosestPair.closest(xs, ys);
+            ClosestPair.Result par = ClosestPair.parallelClosest(xs, ys, 500,
+                    java.util.concurrent.ForkJoinPool.commonPool(), null);
+            assertEquals(seq.distance, par.distance, 1e-9);
+            assertEquals(par.distance, Math.hypot(xs[par.i] - xs[par.j], ys[par.i] - ys[par.j]), 1e-9);
+        }
+
+        // many equal x and y values exercise the tie handling of the y-merge split
+        int n = 20_000;
+        int[] xs = new int[n], ys = new int[n];
+        Random r = new Random(3);
+        for (int i = 0; i < n; i++) { xs[i] = r.nextInt(50) * 1000; ys[i] = r.nextInt(400) * 1000; }
+        assertEquals(ClosestPair.closest(xs, ys).distance,
+                ClosestPair.parallelClosest(xs, ys, 64, java.util.concurrent.ForkJoinPool.commonPool(), null).distance, 1e-9);
+
+        // the no-Metrics overload publishes its own counters
+        ClosestPair.closest(new int[]{0, 1}, new int[]{0, 1});
+        ClosestPair.parallelClosest(xs, ys);
+        assertTrue(ClosestPair.compares > 1_000 && ClosestPair.maxDepth > 1);
+    }
+
     @Test
     void metrics_smoke() {
         ClosestPair.Point[] pts = randPts(2000, 555);
@@ -0,0 +1,86 @@
+import org.example.Engines;
+import org.example.IntSorter;
+import org.example.Metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+
+class EnginesTest {
+
+    static int[] randArr(int n, long seed) {
+        Random r = new Random(seed);
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) a[i] = r.nextInt(2_000_001) - 1_000_000;
+        return a;
+    }
+
+    @Test
+    void every_sorter_sorts() {
+        int[][] inputs = {
+                {}, {7}, {2, 1}, {5, -1, 5, 0, -1, 3, 3, 3, 0},
+                randArr(1_000, 1), randArr(100_000, 2),
+                new int[2_000]   // small: the Lomuto engines are quadratic on equal keys
+        };
+        for (String name : Engines.sorters()) {
+            IntSorter s = Engines.sorter(name);
+            for (int[] in : inputs) {
+                int[] a = in.clone(), exp = in.clone();
+                Arrays.sort(exp);
+                s.sort(a, new Metrics());
+                assertArrayEquals(exp, a, name);
+
+                a = in.clone();
+                s.sort(a, null);
+                assertArrayEquals(exp, a, name + " without metrics");
+            }
+        }
+    }
+
+    @Test
+    void duplicate_heavy_inputs_on_engines_built_for_them() {
+        int[] fewUnique = randArr(200_000, 5);
+        for (int i = 0; i < fewUnique.length; i++) fewUnique[i] &= 3;
+        int[][] inputs = {new int[200_000], fewUnique};
+        for (String name : new String[]{"quicksort-3way", "quicksort-dualpivot", "quicksort-block", "radix", "radix-parallel"}) {
+            for (int[] in : inputs) {
+                int[] a = in.clone(), exp = in.clone();
+                Arrays.sort(exp);
+                Engines.sorter(name).sort(a, new Metrics());
+                assertArrayEquals(exp, a, name);
+            }
+        }
+    }
+
+    @Test
+    void every_selector_matches_sort() {
+        int[] base = randArr(50_001, 3);
+        int[] sorted = base.clone();
+        Arrays.sort(sorted);
+        for (String name : Engines.selectors()) {
+            for (int k : new int[]{0, 1, 25_000, 49_999, 50_000}) {
+                assertEquals(sorted[k], Engines.selector(name).select(base.clone(), k, new Metrics()), name + " k=" + k);
+            }
+        }
+    }
+
+    @Test
+    void registry_lookup() {
+        assertTrue(Engines.sorters().containsAll(java.util.List.of("mergesort", "quicksort", "radix")));
+        assertThrows(IllegalArgumentException.class, () -> Engines.sorter("bogosort"));
+        assertThrows(IllegalArgumentException.class, () -> Engines.selector("bogoselect"));
+
+        // the registry is process-wide: take the test engine out again
+        Engines.registerSorter("jdk", (a, m) -> Arrays.sort(a));
+        try {
+            int[] a = randArr(1_000, 4);
+            Engines.sorter("jdk").sort(a, null);
+            assertTrue(MergeSortTest.isSorted(a));
+        } finally {
+            assertTrue(Engines.unregisterSorter("jdk"));
+        }
+        assertFalse(Engines.sorters().contains("jdk"));
+        assertFalse(Engines.unregisterSorter("jdk"));
+    }
+}
@@ -0,0 +1,86 @@
+import org.example.ExternalMergeSort;
+import org.example.Metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+class ExternalMergeSortTest {
+
+    @TempDir
+    Path dir;
+
+    private static void writeInts(Path p, int[] a) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(p)))) {
+            for (int x : a) out.writeInt(x);
+        }
+    }
+
+    private static int[] readInts(Path p) throws IOException {
+        int[] a = new int[(int) (Files.size(p) / 4)];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(p)))) {
+            for (int i = 0; i < a.length; i++) a[i] = in.readInt();
+        }
+        return a;
+    }
+
+    @Test
+    void ints_with_several_merge_passes() throws IOException {
+        Random r = new Random(11);
+        int[] a = new int[50_000];
+        for (int i = 0; i < a.length; i++) a[i] = r.nextInt();
+        Path in = dir.resolve("in.bin"), out = dir.resolve("out.bin");
+        writeInts(in, a);
+
+        // 50 runs with fan-in 4 -> three merge passes
+        Metrics m = new Metrics();
+        ExternalMergeSort.sort(in, out, ExternalMergeSort.Record.INT, 1_000, 4, dir, m);
+
+        int[] exp = a.clone();
+        Arrays.sort(exp);
+        assertArrayEquals(exp, readInts(out));
+        assertTrue(m.merges > 1);
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count(), "temp runs must be deleted");
+        }
+    }
+
+    @Test
+    void longs() throws IOException {
+        Random r = new Random(12);
+        long[] a = new long[30_000];
+        for (int i = 0; i < a.length; i++) a[i] = r.nextLong();
+        Path in = dir.resolve("in.bin"), out = dir.resolve("out.bin");
+        try (DataOutputStream o = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(in)))) {
+            for (long x : a) o.writeLong(x);
+        }
+
+        ExternalMergeSort.sort(in, out, ExternalMergeSort.Record.LONG, 4_096, 64, dir, null);
+
+        long[] got = new long[a.length];
+        try (DataInputStream i = new DataInputStream(new BufferedInputStream(Files.newInputStream(out)))) {
+            for (int k = 0; k < got.length; k++) got[k] = i.readLong();
+        }
+        Arrays.sort(a);
+        assertArrayEquals(a, got);
+        assertEquals(8L * a.length, Files.size(out));
+    }
+
+    @Test
+    void empty_and_bad_sizes() throws IOException {
+        Path in = dir.resolve("in.bin"), out = dir.resolve("out.bin");
+        Files.write(in, new byte[0]);
+        ExternalMergeSort.sort(in, out, ExternalMergeSort.Record.INT);
+        assertEquals(0, Files.size(out));
+
+        Files.write(in, new byte[6]);
+        assertThrows(IOException.class, () -> ExternalMergeSort.sort(in, out, ExternalMergeSort.Record.INT));
+        assertThrows(IllegalArgumentException.class, () -> ExternalMergeSort.sort(in, out,
+                ExternalMergeSort.Record.LONG, Integer.MAX_VALUE, 4, null, null));
+    }
+}
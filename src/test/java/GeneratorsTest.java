@@ -0,0 +1,75 @@
+import org.example.ClosestPair;
+import org.example.Generators;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+
+class GeneratorsTest {
+
+    static long descents(int[] a) {
+        long d = 0;
+        for (int i = 1; i < a.length; i++) if (a[i - 1] > a[i]) d++;
+        return d;
+    }
+
+    @Test
+    void deterministic_across_parallel_fill() {
+        // above PARALLEL_THRESHOLD the chunks are filled by the pool; the prefix must not change
+        int big = Generators.PARALLEL_THRESHOLD + 12345, small = 3 * Generators.CHUNK;
+        for (String d : Generators.dists()) {
+            int[] a = Generators.ints(d, big, 7);
+            assertArrayEquals(a, Generators.ints(d, big, 7), d);
+            if (!d.equals("reversed") && !d.equals("organpipe") && !d.equals("sawtooth") && !d.equals("zipf")) {
+                // these depend on n itself, the others only on the index and the chunk's stream
+                assertArrayEquals(Generators.ints(d, small, 7), Arrays.copyOf(a, small), d);
+            }
+        }
+        assertFalse(Arrays.equals(Generators.ints("random", 1000, 1), Generators.ints("random", 1000, 2)));
+    }
+
+    @Test
+    void shapes() {
+        int n = 100_000;
+        assertEquals(0, descents(Generators.ints("sorted", n, 1)));
+        assertEquals(n - 1, descents(Generators.ints("reversed", n, 1)));
+        int[] pipe = Generators.ints("organpipe", n, 1);
+        assertEquals(0, descents(Arrays.copyOf(pipe, n / 2)));
+        assertEquals(n / 2 - 1, descents(Arrays.copyOfRange(pipe, n / 2, n)));
+        assertEquals((int) Math.sqrt(n) - 1, descents(Generators.ints("sawtooth", n, 1)), 1);
+
+        long d = descents(Generators.ints("nearlysorted", n, 1));
+        assertTrue(d > 0 && d <= n / 50, "descents " + d);
+
+        assertTrue(Arrays.stream(Generators.ints("fewunique", n, 1)).distinct().count() <= 16);
+
+        int[] z = Generators.ints("zipf", n, 1);
+        int[] freq = new int[n + 1];
+        for (int x : z) { assertTrue(x >= 1 && x <= n); freq[x]++; }
+        // P(1) = log 2 / log(n+1) ≈ 6%, and rank 1 is about twice as frequent as rank 2
+        assertEquals(Math.log(2) / Math.log(n + 1.0), freq[1] / (double) n, 0.005);
+        assertTrue(freq[1] > freq[2] && freq[2] > freq[4] && freq[4] > freq[16]);
+
+        assertThrows(IllegalArgumentException.class, () -> Generators.ints("clustered", 10, 1));
+    }
+
+    @Test
+    void point_sets() {
+        int n = 10_000;
+        int[][] g = Generators.xy("grid", n, 1);
+        assertEquals(16.0, ClosestPair.closest(g[0], g[1], null).distance, 0);
+        assertEquals(100, Arrays.stream(g[0]).distinct().count());
+
+        ClosestPair.Point[] c = Generators.points("clustered", n, 3);
+        int[][] cc = Generators.xy("clustered", n, 3);
+        for (int i = 0; i < n; i++) {
+            assertEquals(cc[0][i], c[i].x);
+            assertEquals(cc[1][i], c[i].y);
+        }
+        // ~1000 points per cluster of sigma 1000 are much denser than uniform points in the 2e6 square
+        int[][] u = Generators.xy("random", n, 3);
+        assertTrue(ClosestPair.closest(cc[0], cc[1], null).distance < ClosestPair.closest(u[0], u[1], null).distance);
+
+        assertThrows(IllegalArgumentException.class, () -> Generators.points("zipf", 10, 1));
+    }
+}
@@ -0,0 +1,89 @@
+import org.example.MappedIntArray;
+import org.example.MappedSort;
+import org.example.Metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+class MappedSortTest {
+
+    @TempDir
+    Path dir;
+
+    private static Path write(Path p, int[] a) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(a.length * 4);
+        bb.asIntBuffer().put(a);
+        Files.write(p, bb.array());
+        return p;
+    }
+
+    private static int[] read(Path p) throws IOException {
+        int[] a = new int[(int) (Files.size(p) / 4)];
+        ByteBuffer.wrap(Files.readAllBytes(p)).asIntBuffer().get(a);
+        return a;
+    }
+
+    private static int[] randArr(int n, long seed) {
+        Random r = new Random(seed);
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) a[i] = r.nextInt(2_000_001) - 1_000_000;
+        return a;
+    }
+
+    @Test
+    void quicksort_region_in_place() throws IOException {
+        int[] a = randArr(20_000, 5);
+        Path f = write(dir.resolve("q.bin"), a);
+
+        MappedSort.quickSort(f, 100, a.length - 100, new Metrics());
+
+        int[] exp = a.clone();
+        Arrays.sort(exp, 100, a.length - 100);
+        assertArrayEquals(exp, read(f));
+    }
+
+    @Test
+    void mergesort_whole_file() throws IOException {
+        int[] a = randArr(30_000, 6);
+        Path f = write(dir.resolve("m.bin"), a);
+
+        MappedSort.mergeSort(f, 0, a.length, dir, null);
+
+        Arrays.sort(a);
+        assertArrayEquals(a, read(f));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count(), "scratch file must be deleted");
+        }
+    }
+
+    @Test
+    void small_chunks_cross_mapping_boundaries() throws IOException {
+        int[] a = randArr(10_000, 7);
+        for (int i = 0; i < a.length; i += 3) a[i] = 42;   // duplicates
+        Path f = write(dir.resolve("c.bin"), a);
+        Path b = write(dir.resolve("b.bin"), new int[a.length]);
+
+        try (MappedIntArray m = MappedIntArray.open(f, 0, a.length, 1 << 10)) {
+            MappedSort.quickSort(m, null);
+        }
+        int[] exp = a.clone();
+        Arrays.sort(exp);
+        assertArrayEquals(exp, read(f));
+
+        write(f, a);
+        try (MappedIntArray m = MappedIntArray.open(f, 0, a.length, 1 << 10);
+             MappedIntArray buf = MappedIntArray.open(b, 0, a.length, 1 << 9)) {
+            MappedSort.mergeSort(m, buf, null);
+        }
+        assertArrayEquals(exp, read(f));
+
+        assertThrows(IllegalArgumentException.class, () -> MappedIntArray.open(f, 0, a.length + 1));
+    }
+}
@@ -1,7 +1,10 @@
 
 import org.example.MergeSort;
+import org.example.Metrics;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Random;
 
 
@@ -47,6 +50,158 @@ class MergeSortTest {
         MergeSort.sort(dups); assertTrue(isSorted(dups));
     }
 
+    @Test
+    void parallel_matches_sequential() {
+        int[] sizes = {0, 1, 100, 50_000, 300_000};
+        for (int t = 0; t < sizes.length; t++) {
+            int[] a = randArr(sizes[t], 99L + t);
+            int[] b = a.clone();
+            MergeSort.sort(a);
+            MergeSort.parallelSort(b, 1_000);
+            assertArrayEquals(a, b);
+        }
+
+        int[] dups = new int[200_000];
+        for (int i = 0; i < dups.length; i++) dups[i] = (i * 31) % 7;
+        MergeSort.parallelSort(dups, 512);
+        assertTrue(isSorted(dups));
+    }
+
+    @Test
+    void per_call_metrics() throws Exception {
+        int[] base = randArr(100_000, 7);
+
+        int[] a = base.clone();
+        MergeSort.sort(a);
+        long compares = MergeSort.compares, copies = MergeSort.copies;
+
+        // same split points, so the parallel run moves exactly the same elements
+        // (compares differ: split merges skip the binary-searched prefixes)
+        Metrics pm = new Metrics();
+        MergeSort.parallelSort(base.clone(), 2_000, java.util.concurrent.ForkJoinPool.commonPool(), pm);
+        assertEquals(copies, pm.copies);
+
+        Metrics[] ms = new Metrics[4];
+        Thread[] ts = new Thread[ms.length];
+        for (int t = 0; t < ts.length; t++) {
+            Metrics m = ms[t] = new Metrics();
+            ts[t] = new Thread(() -> MergeSort.sort(base.clone(), m));
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        for (Metrics m : ms) assertEquals(compares, m.compares);
+
+        int[] off = base.clone();
+        MergeSort.sort(off, null);
+        assertArrayEquals(a, off);
+    }
+
+    @Test
+    void adaptive_matches_sort() {
+        int n = 100_000;
+        int[][] inputs = new int[6][];
+        inputs[0] = randArr(n, 11);
+        inputs[1] = new int[n];                       // sorted with an unsorted tail
+        for (int i = 0; i < n; i++) inputs[1][i] = i;
+        Random r = new Random(12);
+        for (int i = n - 500; i < n; i++) inputs[1][i] = r.nextInt(n);
+        inputs[2] = new int[n];                       // descending blocks
+        for (int i = 0; i < n; i++) inputs[2][i] = (i / 1000) * 1000 + (999 - i % 1000);
+        inputs[3] = new int[n];                       // few unique keys
+        for (int i = 0; i < n; i++) inputs[3][i] = r.nextInt(4);
+        inputs[4] = new int[n];                       // sawtooth
+        for (int i = 0; i < n; i++) inputs[4][i] = i % 777;
+        inputs[5] = new int[]{3, 3, 2, 1, 1};
+        for (int[] in : inputs) {
+            int[] a = in.clone(), b = in.clone();
+            MergeSort.sort(a);
+            MergeSort.adaptiveSort(b, new Metrics());
+            assertArrayEquals(a, b);
+        }
+
+        int[] e = {}; MergeSort.adaptiveSort(e); assertEquals(0, e.length);
+    }
+
+    @Test
+    void vector_matches_sort() {
+        Random r = new Random(21);
+        for (int n = 0; n <= 300; n++) {
+            int[] a = randArr(n, n);
+            if (n % 3 == 0) for (int i = 0; i < n; i += 2) a[i] = i % 4 == 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+            int[] b = a.clone();
+            Arrays.sort(b);
+            MergeSort.vectorSort(a, null);
+            assertArrayEquals(b, a, "n=" + n);
+        }
+        int[] big = randArr(200_000, 22);
+        for (int i = 0; i < big.length; i += 5) big[i] = r.nextInt(10);
+        int[] b = big.clone();
+        Arrays.sort(b);
+        Metrics m = new Metrics();
+        MergeSort.vectorSort(big, m);
+        assertArrayEquals(b, big);
+        assertTrue(m.merges > 0 && m.maxDepth > 1);
+    }
+
+    @Test
+    void adaptive_is_linear_on_runs() {
+        int n = 200_000;
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) sorted[i] = i;
+        Metrics m = new Metrics();
+        MergeSort.adaptiveSort(sorted, m);
+        assertEquals(n - 1, m.compares);
+        assertEquals(0, m.merges);
+
+        int[] dec = new int[n];
+        for (int i = 0; i < n; i++) dec[i] = n - i;
+        m = new Metrics();
+        MergeSort.adaptiveSort(dec, m);
+        assertTrue(isSorted(dec));
+        assertEquals(n - 1, m.compares);
+
+        // a short out-of-order tail costs far less than a full n log n sort
+        int[] tail = new int[n];
+        for (int i = 0; i < n; i++) tail[i] = 2 * i;
+        Random r = new Random(13);
+        for (int i = n - 100; i < n; i++) tail[i] = r.nextInt(2 * n);
+        m = new Metrics();
+        MergeSort.adaptiveSort(tail, m);
+        assertTrue(isSorted(tail));
+        assertTrue(m.compares < 2L * n, "compares: " + m.compares);
+    }
+
+    record Rec(int id, long key) {}
+
+    @Test
+    void objects_are_stable() {
+        Random r = new Random(21);
+        Rec[] base = new Rec[20_000];
+        for (int i = 0; i < base.length; i++) base[i] = new Rec(i, r.nextInt(50) - 25 + ((long) r.nextInt(3) << 40));
+
+        // Arrays.sort on objects is stable too, so the results must match exactly
+        Rec[] exp = base.clone();
+        Arrays.sort(exp, Comparator.comparingLong(Rec::key));
+
+        Rec[] a = base.clone();
+        MergeSort.sort(a, Comparator.comparingLong(Rec::key));
+        assertArrayEquals(exp, a);
+
+        Rec[] b = base.clone();
+        MergeSort.sortByLongKey(b, Rec::key, new Metrics());
+        assertArrayEquals(exp, b);
+
+        Rec[] expInt = base.clone();
+        Arrays.sort(expInt, Comparator.comparingInt(x -> (int) x.key()));
+        Rec[] c = base.clone();
+        MergeSort.sortByIntKey(c, x -> (int) x.key());
+        assertArrayEquals(expInt, c);
+
+        Rec[] one = {new Rec(0, 1)};
+        MergeSort.sortByIntKey(one, x -> 0);
+        assertEquals(0, one[0].id());
+    }
+
     @Test
     void heavy_optional() {
         if (!Boolean.getBoolean("HEAVY")) return;
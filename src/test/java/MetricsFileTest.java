@@ -0,0 +1,86 @@
+import org.example.Metrics;
+import org.example.MetricsFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+class MetricsFileTest {
+
+    @TempDir
+    Path dir;
+
+    private static final String[] ALGOS = {"mergesort", "quicksort", "radix"};
+
+    // row i: algo i % 3 (radix only in the second half), n = i, counters derived from i
+    private static void write(MetricsFile.Writer w, int from, int to) {
+        Metrics m = new Metrics();
+        for (int i = from; i < to; i++) {
+            m.compares = 3L * i;
+            m.passes = i % 5;
+            m.maxDepth = i % 40;
+            m.nanos = 1_000L * i;
+            String algo = ALGOS[i % 3 == 2 && i < to / 2 ? 0 : i % 3];
+            w.record(algo, i, 42 + i, m);
+        }
+    }
+
+    private static List<long[]> readAll(Path f, Set<String> algos) throws IOException {
+        List<long[]> out = new ArrayList<>();
+        MetricsFile.read(f, algos, r -> {
+            assertEquals(3L * r.n, r.m.compares);
+            assertEquals(r.n % 40, r.m.maxDepth);
+            assertEquals(1_000L * r.n, r.m.nanos);
+            assertEquals(42 + r.n, r.seed);
+            out.add(new long[]{r.n, r.algo.hashCode()});
+        });
+        return out;
+    }
+
+    @Test
+    void roundtrip_append_and_index() throws IOException {
+        Path f = dir.resolve("m.bin");
+        int rows = 3 * MetricsFile.BLOCK_ROWS + 17;
+        try (MetricsFile.Writer w = MetricsFile.append(f, true)) { write(w, 0, rows); }
+        try (MetricsFile.Writer w = MetricsFile.append(f, true)) { write(w, rows, rows + 1000); }
+        assertTrue(MetricsFile.isMetricsFile(f));
+
+        List<long[]> all = readAll(f, null);
+        assertEquals(rows + 1000, all.size());
+        for (int i = 0; i < all.size(); i++) assertEquals(i, all.get(i)[0]);
+
+        List<long[]> radix = readAll(f, Set.of("radix"));
+        assertFalse(radix.isEmpty());
+        for (long[] r : radix) assertEquals("radix".hashCode(), r[1]);
+        List<long[]> none = readAll(f, Set.of("bogosort"));
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    void torn_file_keeps_complete_blocks() throws IOException {
+        Path f = dir.resolve("t.bin");
+        try (MetricsFile.Writer w = MetricsFile.append(f, false)) { write(w, 0, 2 * MetricsFile.BLOCK_ROWS + 5); }
+        long size = Files.size(f);
+        try (RandomAccessFile raf = new RandomAccessFile(f.toFile(), "rw")) {
+            raf.setLength(size - 100);   // trailer and the end of the last block are gone
+        }
+        assertEquals(2 * MetricsFile.BLOCK_ROWS, readAll(f, null).size());
+        assertEquals(2 * MetricsFile.BLOCK_ROWS / 3 + 1, readAll(f, Set.of("quicksort")).size());
+
+        // appending after a torn block overwrites it
+        try (MetricsFile.Writer w = MetricsFile.append(f, true)) { write(w, 2 * MetricsFile.BLOCK_ROWS, 2 * MetricsFile.BLOCK_ROWS + 5); }
+        assertEquals(2 * MetricsFile.BLOCK_ROWS + 5, readAll(f, null).size());
+
+        Path csv = dir.resolve("m.csv");
+        Files.writeString(csv, "label,n\n");
+        assertFalse(MetricsFile.isMetricsFile(csv));
+        assertThrows(IOException.class, () -> MetricsFile.read(csv, r -> { }));
+    }
+}
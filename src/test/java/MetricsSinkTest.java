@@ -0,0 +1,101 @@
+import org.example.Metrics;
+import org.example.MetricsSink;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class MetricsSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rows_from_many_threads_are_written_once() throws Exception {
+        Path f = dir.resolve("m.csv");
+        try (MetricsSink sink = MetricsSink.open(f)) {
+            Thread[] ts = new Thread[4];
+            for (int t = 0; t < ts.length; t++) {
+                int id = t;
+                ts[t] = new Thread(() -> {
+                    Metrics m = new Metrics();
+                    for (int i = 0; i < 5_000; i++) {
+                        m.compares = i;
+                        sink.record("t" + id + "_" + i, i, m);
+                    }
+                });
+                ts[t].start();
+            }
+            for (Thread t : ts) t.join();
+        }
+
+        List<String> lines = Files.readAllLines(f);
+        assertEquals(MetricsSink.HEADER, lines.get(0));
+        assertEquals(1 + 20_000, lines.size());
+        assertEquals(20_000, lines.stream().skip(1).distinct().count());
+        assertTrue(lines.contains("t3_4999,4999,4999,0,0,0,0,0,0,0,0,0.000000"));
+    }
+
+    @Test
+    void rows_accepted_during_close_are_written() throws Exception {
+        Path f = dir.resolve("race.csv");
+        MetricsSink sink = MetricsSink.open(f);
+        Metrics m = new Metrics();
+        int[] accepted = new int[4];
+        Thread[] ts = new Thread[accepted.length];
+        for (int t = 0; t < ts.length; t++) {
+            int id = t;
+            ts[t] = new Thread(() -> {
+                try {
+                    while (true) {
+                        sink.record("t" + id, accepted[id], m);
+                        accepted[id]++;
+                    }
+                } catch (IllegalStateException closed) {
+                    // every row before this one was accepted
+                }
+            });
+            ts[t].start();
+        }
+        Thread.sleep(20);
+        sink.close();
+        for (Thread t : ts) t.join();
+
+        long total = 0;
+        for (int a : accepted) total += a;
+        assertEquals(1 + total, Files.readAllLines(f).size());
+    }
+
+    @Test
+    void header_once_per_file() throws IOException {
+        Path f = dir.resolve("h.csv");
+        Metrics m = new Metrics();
+        m.nanos = 1_500_000;
+        try (MetricsSink sink = MetricsSink.open(f)) { sink.record("a", 1, m); }
+        try (MetricsSink sink = MetricsSink.open(f)) { sink.record("b", 2, m); }
+        assertEquals(List.of(MetricsSink.HEADER,
+                "a,1,0,0,0,0,0,0,0,0,0,1.500000",
+                "b,2,0,0,0,0,0,0,0,0,0,1.500000"), Files.readAllLines(f));
+
+        // files in the old "key: value" format get the header once, in front of the old rows
+        Path old = dir.resolve("old.csv");
+        Files.writeString(old, "ms_rand_10, n: 10, time_ms: 0.1\n");
+        try (MetricsSink sink = MetricsSink.open(old)) { sink.record("c", 3, m); }
+        try (MetricsSink sink = MetricsSink.open(old)) { sink.record("d", 4, m); }
+        assertEquals(List.of(MetricsSink.HEADER,
+                "ms_rand_10, n: 10, time_ms: 0.1",
+                "c,3,0,0,0,0,0,0,0,0,0,1.500000",
+                "d,4,0,0,0,0,0,0,0,0,0,1.500000"), Files.readAllLines(old));
+
+        MetricsSink closed = MetricsSink.open(dir.resolve("c.csv"));
+        closed.close();
+        assertThrows(IllegalStateException.class, () -> closed.record("x", 1, m));
+        assertThrows(IllegalArgumentException.class, () -> {
+            try (MetricsSink sink = MetricsSink.open(dir.resolve("d.csv"))) { sink.record("a,b", 1, m); }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+import org.example.OrderStatisticTree;
+import org.example.Select;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+class OrderStatisticTreeTest {
+
+    @Test
+    void kth_matches_select_under_updates() {
+        Random r = new Random(5);
+        OrderStatisticTree t = new OrderStatisticTree(5);
+        List<Integer> ref = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int x = r.nextInt(500);                          // many duplicates
+            if (ref.isEmpty() || r.nextInt(3) > 0) {
+                t.insert(x);
+                ref.add(x);
+            } else {
+                assertEquals(ref.remove((Integer) x), t.delete(x));
+            }
+            assertEquals(ref.size(), t.size());
+            if (step % 97 == 0 && !ref.isEmpty()) {
+                int[] a = ref.stream().mapToInt(Integer::intValue).toArray();
+                int k = r.nextInt(a.length);
+                assertEquals(Select.select(a, k), t.kth(k));
+                assertEquals(Collections.frequency(ref, x), t.count(x));
+                assertEquals(ref.stream().filter(y -> y < x).count(), t.rank(x));
+            }
+        }
+    }
+
+    @Test
+    void of_builds_every_rank() {
+        int[] a = SelectTest.randArr(10_001, 9);
+        for (int i = 0; i < a.length; i += 3) a[i] = 42;
+        OrderStatisticTree t = OrderStatisticTree.of(a);
+        int[] sorted = a.clone();
+        Arrays.sort(sorted);
+        for (int k = 0; k < a.length; k++) assertEquals(sorted[k], t.kth(k));
+
+        // the built tree keeps working as a treap
+        for (int i = 0; i < a.length; i += 2) assertTrue(t.delete(a[i]));
+        t.insert(Integer.MIN_VALUE);
+        t.insert(Integer.MAX_VALUE);
+        assertEquals(Integer.MIN_VALUE, t.kth(0));
+        assertEquals(Integer.MAX_VALUE, t.kth(t.size() - 1));
+        assertEquals(a.length / 2 + 2, t.size());
+    }
+
+    @Test
+    void empty_and_invalid() {
+        OrderStatisticTree t = OrderStatisticTree.of(new int[0]);
+        assertTrue(t.isEmpty());
+        assertFalse(t.delete(1));
+        assertThrows(IllegalArgumentException.class, () -> t.kth(0));
+        t.insert(3);
+        t.insert(3);
+        assertEquals(3, t.kth(1));
+        assertThrows(IllegalArgumentException.class, () -> t.kth(2));
+        assertTrue(t.delete(3));
+        assertTrue(t.delete(3));
+        assertTrue(t.isEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+import org.example.Generators;
+import org.example.QuantileSketch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+
+class QuantileSketchTest {
+
+    private static final double[] QS = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    @Test
+    void answers_within_error_bound() {
+        for (String dist : new String[]{"random", "sorted", "fewunique", "zipf"}) {
+            QuantileSketch s = QuantileSketch.validating(200, 7);
+            for (int x : Generators.ints(dist, 300_000, 7)) s.update(x);
+            QuantileSketch.Validation v = s.validate(QS);
+            // seeded, so deterministic; epsilon is a ~99% bound per query and these seeds stay inside it
+            assertTrue(v.withinBound(), dist + " error " + v.maxRankError());
+            assertEquals(v.exact()[0], v.approx()[0]);                      // min and max are exact
+            assertEquals(v.exact()[QS.length - 1], v.approx()[QS.length - 1]);
+            assertTrue(s.retained() < 4 * s.k(), dist + " retained " + s.retained());
+        }
+    }
+
+    @Test
+    void merged_per_thread_sketches_match_one_stream() throws InterruptedException {
+        int[] a = Generators.ints("random", 400_000, 11);
+        QuantileSketch[] parts = new QuantileSketch[4];
+        Thread[] ts = new Thread[parts.length];
+        for (int p = 0; p < parts.length; p++) {
+            QuantileSketch s = parts[p] = QuantileSketch.validating(200, 100 + p);
+            int from = p * a.length / parts.length, to = (p + 1) * a.length / parts.length;
+            ts[p] = new Thread(() -> { for (int i = from; i < to; i++) s.update(a[i]); });
+            ts[p].start();
+        }
+        for (Thread t : ts) t.join();
+        QuantileSketch all = QuantileSketch.validating(200, 99);
+        for (QuantileSketch p : parts) all.merge(p);
+
+        assertEquals(a.length, all.count());
+        QuantileSketch.Validation v = all.validate(QS);
+        assertTrue(v.withinBound(), "error " + v.maxRankError());
+        long r = all.rank(all.quantile(0.5));
+        assertEquals(0.5, (double) r / a.length, 2 * all.epsilon());
+    }
+
+    @Test
+    void error_bound_sets_k() {
+        QuantileSketch s = QuantileSketch.withError(0.01);
+        assertTrue(s.epsilon() <= 0.01);
+        assertTrue(QuantileSketch.epsilon(s.k() - 1) > 0.01);
+        assertTrue(QuantileSketch.withError(0.05).k() < s.k());
+
+        int[] sorted = new int[s.k() - 1];                 // fewer items than one level holds: exact
+        for (int i = 0; i < sorted.length; i++) s.update(sorted[i] = i % 10);
+        Arrays.sort(sorted);
+        for (int k = 0; k < sorted.length; k++) assertEquals(sorted[k], s.select(k));
+
+        assertThrows(IllegalArgumentException.class, () -> s.select(sorted.length));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch().quantile(0.5));
+        assertThrows(IllegalStateException.class, () -> s.validate(0.5));
+        assertThrows(IllegalArgumentException.class, () -> s.merge(QuantileSketch.validating(s.k())));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(200).merge(new QuantileSketch(50)));
+    }
+}
@@ -1,3 +1,4 @@
+import org.example.Metrics;
 import org.example.QuickSort;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +46,69 @@ class QuickSortTest {
         QuickSort.sort(dups); assertTrue(isSorted(dups));
     }
 
+    @Test
+    void parallel_sorts_random_and_patterns() {
+        int[] sizes = {0, 1, 100, 50_000, 300_000};
+        for (int t = 0; t < sizes.length; t++) {
+            int[] a = randArr(sizes[t], 4242L + t);
+            int[] b = a.clone();
+            java.util.Arrays.sort(b);
+            QuickSort.parallelSort(a, 1_000);
+            assertArrayEquals(b, a);
+        }
+
+        int[] inc = new int[100_000];
+        for (int i = 0; i < inc.length; i++) inc[i] = i;
+        QuickSort.parallelSort(inc, 512); assertTrue(isSorted(inc));
+    }
+
+    @Test
+    void all_partition_strategies() {
+        for (QuickSort.Partition p : QuickSort.Partition.values()) {
+            int[] a = randArr(50_000, 31);
+            int[] b = a.clone();
+            java.util.Arrays.sort(b);
+            QuickSort.sort(a, p, null);
+            assertArrayEquals(b, a, p.name());
+
+            int[] few = new int[50_000];
+            java.util.Random r = new java.util.Random(5);
+            for (int i = 0; i < few.length; i++) few[i] = r.nextInt(4);
+            QuickSort.sort(few, p, null); assertTrue(isSorted(few), p.name());
+
+            int[] dec = new int[5000];
+            for (int i = 0; i < dec.length; i++) dec[i] = dec.length - i;
+            QuickSort.sort(dec, p, null); assertTrue(isSorted(dec), p.name());
+
+            int[] par = randArr(200_000, 77);
+            QuickSort.parallelSort(par, 1_000, java.util.concurrent.ForkJoinPool.commonPool(), p, null);
+            assertTrue(isSorted(par), p.name());
+        }
+    }
+
+    @Test
+    void three_way_is_flat_on_equal_keys() {
+        int[] same = new int[100_000];
+        Metrics m = new Metrics();
+        QuickSort.sort(same, QuickSort.Partition.THREE_WAY, m);
+        assertEquals(1, m.pivots);
+        assertEquals(1, m.maxDepth);
+    }
+
+    @Test
+    void block_is_balanced_on_equal_keys() {
+        int[] same = new int[100_000];
+        Metrics m = new Metrics();
+        QuickSort.sort(same, QuickSort.Partition.BLOCK, m);
+        // equal keys are split evenly, so depth stays near log2(n / CUTOFF) ≈ 12
+        assertTrue(m.maxDepth <= 20, "depth " + m.maxDepth);
+
+        int[] extremes = new int[10_000];
+        for (int i = 0; i < extremes.length; i++) extremes[i] = i % 3 == 0 ? Integer.MIN_VALUE : i % 3 == 1 ? Integer.MAX_VALUE : i;
+        QuickSort.sort(extremes, QuickSort.Partition.BLOCK, null);
+        assertTrue(isSorted(extremes));
+    }
+
     @Test
     void heavy_optional() {
         if (!Boolean.getBoolean("HEAVY")) return;
@@ -0,0 +1,87 @@
+import org.example.Metrics;
+import org.example.RadixSort;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+
+class RadixSortTest {
+
+    static int[] randArr(int n, long seed) {
+        Random r = new Random(seed);
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) a[i] = r.nextInt(2_000_001) - 1_000_000;
+        return a;
+    }
+
+    @Test
+    void ints_including_extremes() {
+        int[] a = randArr(20_000, 1);
+        a[0] = Integer.MIN_VALUE; a[1] = Integer.MAX_VALUE; a[2] = -1; a[3] = 0;
+        int[] exp = a.clone();
+        Arrays.sort(exp);
+        RadixSort.sort(a);
+        assertArrayEquals(exp, a);
+
+        int[] e = {}; RadixSort.sort(e);
+        int[] one = {5}; RadixSort.sort(one); assertEquals(5, one[0]);
+    }
+
+    @Test
+    void skips_passes_with_equal_bytes() {
+        // keys in [0, 256): only the low byte differs
+        Random r = new Random(2);
+        int[] a = new int[5000];
+        for (int i = 0; i < a.length; i++) a[i] = r.nextInt(256);
+        Metrics m = new Metrics();
+        RadixSort.sort(a, m);
+        assertEquals(1, m.passes);
+        for (int i = 1; i < a.length; i++) assertTrue(a[i - 1] <= a[i]);
+
+        int[] same = new int[1000];
+        Arrays.fill(same, -7);
+        m = new Metrics();
+        RadixSort.sort(same, m);
+        assertEquals(0, m.passes);
+    }
+
+    @Test
+    void longs() {
+        Random r = new Random(3);
+        long[] a = new long[20_000];
+        for (int i = 0; i < a.length; i++) a[i] = r.nextLong();
+        a[0] = Long.MIN_VALUE; a[1] = Long.MAX_VALUE;
+        long[] exp = a.clone();
+        Arrays.sort(exp);
+        RadixSort.sort(a, null);
+        assertArrayEquals(exp, a);
+    }
+
+    @Test
+    void parallel_matches_sequential() {
+        int[] a = randArr(500_000, 4);
+        a[7] = Integer.MIN_VALUE;
+        int[] b = a.clone();
+        RadixSort.sort(a, null);
+        Metrics m = new Metrics();
+        RadixSort.parallelSort(b, java.util.concurrent.ForkJoinPool.commonPool(), m);
+        assertArrayEquals(a, b);
+        assertEquals(4, m.passes);
+
+        // the no-Metrics overload publishes its own counters, not the previous call's
+        RadixSort.sort(new int[]{2, 1});
+        int[] c = randArr(500_000, 4);
+        RadixSort.parallelSort(c);
+        assertEquals(m.copies, RadixSort.copies);
+        assertEquals(4, RadixSort.passes);
+    }
+
+    @Test
+    void metrics_smoke() {
+        int[] a = randArr(10_000, 5);
+        RadixSort.sort(a);
+        RadixSort.saveMetricsCsv("radix_rand_10k_seed5", a.length);
+        assertTrue(RadixSort.passes > 0);
+    }
+}
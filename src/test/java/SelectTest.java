@@ -35,6 +35,88 @@ class SelectTest {
         }
     }
 
+    @Test
+    void intro_select_matches_sort() {
+        int n = 20_000;
+        int[][] inputs = new int[4][];
+        inputs[0] = randArr(n, 321);
+        inputs[1] = new int[n];                                   // all equal
+        inputs[2] = new int[n];
+        for (int i = 0; i < n; i++) inputs[2][i] = i;             // sorted
+        inputs[3] = new int[n];
+        for (int i = 0; i < n; i++) inputs[3][i] = Math.min(i, n - i) % 37;
+        for (int[] a : inputs) {
+            int[] sorted = a.clone();
+            Arrays.sort(sorted);
+            for (int k = 0; k < n; k += 997) {
+                assertEquals(sorted[k], Select.introSelect(a.clone(), k, null));
+            }
+            assertEquals(sorted[n - 1], Select.introSelect(a.clone(), n - 1));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Select.introSelect(new int[3], 3));
+    }
+
+    @Test
+    void every_partition_mode_matches_sort() {
+        Random r = new Random(9);
+        for (Select.Partition p : Select.Partition.values()) {
+            for (int n : new int[]{1, 7, 8, 9, 17, 100, 1_000, 50_000}) {
+                int[] a = randArr(n, n);
+                for (int i = 0; i < n; i += 3) a[i] = r.nextInt(3);   // many keys equal to the pivot
+                if (n > 9) { a[0] = Integer.MIN_VALUE; a[1] = Integer.MAX_VALUE; }
+                int[] sorted = a.clone();
+                Arrays.sort(sorted);
+                for (int k = 0; k < n; k += Math.max(1, n / 10)) {
+                    assertEquals(sorted[k], Select.introSelect(a.clone(), k, p, null), p + " n=" + n);
+                }
+                assertEquals(sorted[n - 1], Select.introSelect(a.clone(), n - 1, p, null), p + " n=" + n);
+            }
+        }
+    }
+
+    @Test
+    void select_many_matches_sort() {
+        int n = 50_000;
+        int[] a = randArr(n, 999);
+        int[] sorted = a.clone();
+        Arrays.sort(sorted);
+        int[] ks = {n / 2, (int) (n * 0.9), (int) (n * 0.99), (int) (n * 0.999), 0, n - 1, n / 2};
+        int[] got = Select.selectMany(a.clone(), ks);
+        for (int i = 0; i < ks.length; i++) assertEquals(sorted[ks[i]], got[i]);
+
+        int[] dups = new int[n];
+        for (int i = 0; i < n; i++) dups[i] = (i * 7919) % 13;
+        int[] ds = dups.clone();
+        Arrays.sort(ds);
+        int[] all = new int[200];
+        for (int i = 0; i < all.length; i++) all[i] = i * (n / all.length);
+        got = Select.selectMany(dups, all);
+        for (int i = 0; i < all.length; i++) assertEquals(ds[all[i]], got[i]);
+
+        assertEquals(0, Select.selectMany(new int[]{1}, new int[0]).length);
+        assertThrows(IllegalArgumentException.class, () -> Select.selectMany(new int[3], new int[]{1, 3}));
+    }
+
+    @Test
+    void intro_select_does_not_allocate() {
+        var bean = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) return;
+        int[] a = randArr(100_000, 8);
+        int[] w = new int[a.length];
+        for (int warm = 0; warm < 50; warm++) {
+            System.arraycopy(a, 0, w, 0, a.length);
+            Select.introSelect(w, warm * 1000, null);
+        }
+        long tid = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(tid);
+        for (int t = 0; t < 20; t++) {
+            System.arraycopy(a, 0, w, 0, a.length);
+            Select.introSelect(w, t * 5000, null);
+        }
+        long allocated = bean.getThreadAllocatedBytes(tid) - before;
+        assertTrue(allocated < 4096, "allocated " + allocated + " bytes");
+    }
+
     @Test
     void metrics_smoke() {
         int[] a = randArr(1000, 555);
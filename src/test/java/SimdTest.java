@@ -0,0 +1,20 @@
+import org.example.Simd;
+
+import jdk.incubator.vector.IntVector;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimdTest {
+
+    // surefire starts the tests with --add-modules jdk.incubator.vector, so the kernels
+    // are off only on CPUs without native 8-lane int vectors
+    @Test
+    void enabled_with_the_module() {
+        assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+        if (!Boolean.parseBoolean(System.getProperty("simd", "true"))) {
+            assertFalse(Simd.enabled());
+        } else {
+            assertEquals(IntVector.SPECIES_PREFERRED.length() >= 8, Simd.enabled());
+        }
+    }
+}
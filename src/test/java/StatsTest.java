@@ -0,0 +1,68 @@
+import org.example.Stats;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+
+class StatsTest {
+
+    // log-normal "latencies" over several orders of magnitude
+    static double[] samples(int n, long seed) {
+        Random r = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = Math.exp(r.nextGaussian() * 2);
+        return x;
+    }
+
+    static double exact(double[] sorted, double q) {
+        return sorted[(int) Math.max(0, Math.ceil(q * sorted.length) - 1)];
+    }
+
+    @Test
+    void moments_and_quantiles() {
+        double[] x = samples(100_000, 1);
+        Stats s = new Stats();
+        for (double v : x) s.add(v);
+
+        double mean = Arrays.stream(x).average().orElseThrow();
+        double var = Arrays.stream(x).map(v -> (v - mean) * (v - mean)).sum() / (x.length - 1);
+        assertEquals(x.length, s.count());
+        assertEquals(mean, s.mean(), 1e-9 * mean);
+        assertEquals(var, s.variance(), 1e-9 * var);
+
+        double[] sorted = x.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted[0], s.min());
+        assertEquals(sorted[x.length - 1], s.max());
+        for (double q : new double[]{0.01, 0.5, 0.95, 0.99, 0.999}) {
+            double e = exact(sorted, q);
+            assertEquals(e, s.quantile(q), 0.01 * e, "q=" + q);
+        }
+    }
+
+    @Test
+    void merge_equals_single_pass() {
+        double[] x = samples(50_000, 2);
+        Stats all = new Stats(), a = new Stats(), b = new Stats();
+        for (int i = 0; i < x.length; i++) {
+            all.add(x[i]);
+            (i % 3 == 0 ? a : b).add(x[i] * 1);
+        }
+        a.merge(b);
+        assertEquals(all.count(), a.count());
+        assertEquals(all.mean(), a.mean(), 1e-9 * all.mean());
+        assertEquals(all.variance(), a.variance(), 1e-9 * all.variance());
+        for (double q : new double[]{0.5, 0.95, 0.99}) assertEquals(all.quantile(q), a.quantile(q));
+
+        Stats empty = new Stats();
+        assertTrue(Double.isNaN(empty.quantile(0.5)));
+        empty.merge(all);
+        assertEquals(all.quantile(0.99), empty.quantile(0.99));
+
+        Stats z = new Stats();
+        for (int i = 0; i < 10; i++) z.add(i < 6 ? 0 : 1000);
+        assertEquals(0, z.quantile(0.5));
+        assertEquals(1000, z.quantile(0.99), 10);
+    }
+}